@@ -0,0 +1,12 @@
+#!/bin/bash
+
+# Generates a synthetic scenario into ./scenarios, to be run by runExperiments.sh (e.g. --scenarios=g).
+# Usage: sh ./generateScenario.sh --name=g --seed=42 --services=200 --dataCenters=20 --multiplicators=1,10
+
+java \
+    -Dloader.main=at.ac.tuwien.dsg.cooper.scenario.ScenarioGenerator \
+    -cp target/Cooper.jar \
+    org.springframework.boot.loader.PropertiesLauncher \
+    "$@" && \
+
+echo "-- FINISHED scenario generation $@"
@@ -0,0 +1,14 @@
+#!/bin/bash
+
+# Runs the experiment matrix in one JVM, writes evaluation/experiments.csv besides the per-run output.
+# Usage: sh ./runExperiments.sh --scenarios=a,b --multiplicators=1,10 --strategies=FF,GA,GA_NC --parallelism=4
+
+java \
+    -Djava.library.path=/Applications/CPLEX_Studio1210/cplex/bin/x86-64_osx \
+    -Dloader.main=at.ac.tuwien.dsg.cooper.evaluation.ExperimentRunner \
+    -Dloader.path=scenarios \
+    -cp target/Cooper.jar \
+    org.springframework.boot.loader.PropertiesLauncher \
+    "$@" && \
+
+echo "-- FINISHED experiments $@"
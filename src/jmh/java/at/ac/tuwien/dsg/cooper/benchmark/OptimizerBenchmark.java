@@ -0,0 +1,59 @@
+package at.ac.tuwien.dsg.cooper.benchmark;
+
+import at.ac.tuwien.dsg.cooper.domain.ContainerType;
+import at.ac.tuwien.dsg.cooper.domain.VmInstance;
+import at.ac.tuwien.dsg.cooper.genetic.SimpleReparation;
+import at.ac.tuwien.dsg.cooper.interaction.InteractionRecorder;
+import at.ac.tuwien.dsg.cooper.interaction.InteractionSimulation;
+import at.ac.tuwien.dsg.cooper.scheduler.FirstFitOptimizer;
+import at.ac.tuwien.dsg.cooper.scheduler.dto.Allocation;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Throughput of the optimizer hot paths on the shipped scenarios. Run with the GC profiler ({@code -prof gc}, the
+ * default of the jmh profile) to report the allocation rate as well.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OptimizerBenchmark {
+
+    @Benchmark
+    public float fitnessFunctionEval(ScenarioFixture fixture) {
+        return fixture.fitnessFunction.eval(fixture.allocation, fixture.previousAllocation, fixture.measures, Map.of(), false);
+    }
+
+    @Benchmark
+    public InteractionRecorder interactionSimulationSimulate(ScenarioFixture fixture) {
+        var simulation = new InteractionSimulation(fixture.model, fixture.allocation, fixture.measures);
+        simulation.simulate();
+        return simulation.getInteractionRecorder();
+    }
+
+    @Benchmark
+    public int validatorViolations(ScenarioFixture fixture) {
+        return fixture.validator.violations(fixture.allocation, fixture.previousAllocation, fixture.measures.getTotalServiceLoad());
+    }
+
+    @Benchmark
+    public Map<VmInstance, List<ContainerType>> allocationCodecServiceRowSquareDecoder(ScenarioFixture fixture) {
+        return fixture.codec.serviceRowSquareDecoder(fixture.genotype);
+    }
+
+    @Benchmark
+    public Map<VmInstance, List<ContainerType>> simpleReparationRepairGeneticAllocation(ScenarioFixture fixture) {
+        var reparation = new SimpleReparation(fixture.model, fixture.measures, fixture.validator, fixture.previousAllocation);
+        return reparation.repairGeneticAllocation(fixture.geneticAllocation);
+    }
+
+    @Benchmark
+    public List<Allocation.AllocationTuple> firstFitOptimizerDoIt(ScenarioFixture fixture) {
+        return new FirstFitOptimizer(fixture.model).doIt(fixture.previousAllocation, fixture.measures);
+    }
+
+}
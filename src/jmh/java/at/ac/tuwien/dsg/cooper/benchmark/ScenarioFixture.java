@@ -0,0 +1,85 @@
+package at.ac.tuwien.dsg.cooper.benchmark;
+
+import at.ac.tuwien.dsg.cooper.config.OptimizationConfig;
+import at.ac.tuwien.dsg.cooper.evaluation.ExperimentRunner;
+import at.ac.tuwien.dsg.cooper.genetic.AllocationCodec;
+import at.ac.tuwien.dsg.cooper.genetic.DistributedIntegerGene;
+import at.ac.tuwien.dsg.cooper.genetic.FitnessFunction;
+import at.ac.tuwien.dsg.cooper.scheduler.FirstFitOptimizer;
+import at.ac.tuwien.dsg.cooper.scheduler.Model;
+import at.ac.tuwien.dsg.cooper.scheduler.Validator;
+import at.ac.tuwien.dsg.cooper.scheduler.dto.Allocation;
+import at.ac.tuwien.dsg.cooper.scheduler.dto.MonitoringResult;
+import at.ac.tuwien.dsg.cooper.scheduler.dto.SystemMeasures;
+import at.ac.tuwien.dsg.cooper.simulated.EndOfScenarioException;
+import at.ac.tuwien.dsg.cooper.simulated.SimulatedMonitoringController;
+import io.jenetics.Genotype;
+import io.jenetics.util.RandomRegistry;
+import java.util.Map;
+import java.util.Random;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * A shipped scenario at its peak load: the measures of the load fixture's record with the highest system load, the
+ * first-fit allocation for it (as a valid previous allocation would be) and a random genotype (as an unrepaired GA
+ * individual would be). Built once per trial.
+ */
+@State(Scope.Benchmark)
+public class ScenarioFixture {
+
+    private static final long SEED = 42;
+    private static final int CYCLE_SECONDS = 30;
+
+    @Param({"a"})
+    public String scenario;
+
+    @Param({"1", "10", "100"})
+    public int multiplicator;
+
+    public Model model;
+    public OptimizationConfig config;
+    public Validator validator;
+    public FitnessFunction fitnessFunction;
+    public SystemMeasures measures;
+    public Allocation previousAllocation;
+    public Allocation allocation;
+    public AllocationCodec codec;
+    public Genotype<DistributedIntegerGene> genotype;
+    public Allocation geneticAllocation;
+
+    @Setup
+    public void setUp() {
+        var binder = ExperimentRunner.binder(scenario, multiplicator, OptimizationConfig.OptimizationAlgorithm.GA, Map.of());
+        model = ExperimentRunner.model(binder);
+        config = binder.bind("cooper.optimization", OptimizationConfig.class).get();
+        validator = new Validator(model);
+        fitnessFunction = new FitnessFunction(model, validator, config.getGaLatencyWeight());
+
+        previousAllocation = new Allocation(model);
+        measures = new SystemMeasures(model, peakLoad(binder.bind("cooper.load-fixture", String.class).get()), previousAllocation);
+        allocation = new FirstFitOptimizer(model).optimize(previousAllocation, measures, Map.of()).getAllocation();
+
+        codec = new AllocationCodec(model, measures);
+        genotype = RandomRegistry.with(new Random(SEED), r -> codec.serviceRowGenotypeFactory());
+        geneticAllocation = new Allocation(model, codec.serviceRowSquareDecoder(genotype));
+    }
+
+    private MonitoringResult peakLoad(String loadFixture) {
+        var monitor = new SimulatedMonitoringController(model, loadFixture);
+        MonitoringResult peak = null;
+        try {
+            for (int clock = 0; ; clock += CYCLE_SECONDS) {
+                var load = monitor.getCurrentLoad(clock);
+                if (peak == null || load.getTotalSystemLoad() > peak.getTotalSystemLoad()) {
+                    peak = load;
+                }
+            }
+        } catch (EndOfScenarioException e) {
+            return peak;
+        }
+    }
+
+}
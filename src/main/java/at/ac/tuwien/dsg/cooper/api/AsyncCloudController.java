@@ -0,0 +1,147 @@
+package at.ac.tuwien.dsg.cooper.api;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+/**
+ * A {@link CloudController} whose operations may also be issued without waiting for the provider, e.g. to launch
+ * several VMs at once. Ordering dependencies among operations (like launching a VM before its containers) are up to the
+ * caller.
+ */
+public interface AsyncCloudController extends CloudController {
+
+    CompletableFuture<Long> launchVmAsync(String type, String dataCenter);
+
+    CompletableFuture<Void> terminateVmAsync(long id);
+
+    CompletableFuture<Long> launchContainerAsync(int cpuCores, long memory, long vmId);
+
+    CompletableFuture<Void> terminateContainerAsync(long id);
+
+    // batch variants, by default issuing the single operations at once
+
+    default CompletableFuture<List<Long>> launchVmsAsync(List<String> types, String dataCenter) {
+        return allOf(types.stream().map(type -> launchVmAsync(type, dataCenter)).collect(Collectors.toList()));
+    }
+
+    default CompletableFuture<Void> terminateVmsAsync(List<Long> ids) {
+        return allOf(ids.stream().map(this::terminateVmAsync).collect(Collectors.toList())).thenApply(done -> null);
+    }
+
+    default CompletableFuture<List<Long>> launchContainersAsync(List<ContainerLaunch> launches) {
+        return allOf(launches.stream()
+                .map(l -> launchContainerAsync(l.getCpuCores(), l.getMemory(), l.getVmId()))
+                .collect(Collectors.toList()));
+    }
+
+    default CompletableFuture<Void> terminateContainersAsync(List<Long> ids) {
+        return allOf(ids.stream().map(this::terminateContainerAsync).collect(Collectors.toList())).thenApply(done -> null);
+    }
+
+    private static <T> CompletableFuture<List<T>> allOf(List<CompletableFuture<T>> futures) {
+        return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                .thenApply(done -> futures.stream().map(CompletableFuture::join).collect(Collectors.toList()));
+    }
+
+
+    /**
+     * Issues the blocking operations of the given controller on the executor, i.e. at most as many operations are in
+     * progress concurrently as the executor has threads. A batch is issued as one operation, using the controller's
+     * batch variant. The controller must be thread-safe.
+     */
+    static AsyncCloudController of(CloudController controller, Executor executor) {
+        if (controller instanceof AsyncCloudController) {
+            return (AsyncCloudController) controller;
+        }
+
+        return new AsyncCloudController() {
+            @Override
+            public CompletableFuture<Long> launchVmAsync(String type, String dataCenter) {
+                return CompletableFuture.supplyAsync(() -> controller.launchVm(type, dataCenter), executor);
+            }
+
+            @Override
+            public CompletableFuture<Void> terminateVmAsync(long id) {
+                return CompletableFuture.runAsync(() -> controller.terminateVm(id), executor);
+            }
+
+            @Override
+            public CompletableFuture<Long> launchContainerAsync(int cpuCores, long memory, long vmId) {
+                return CompletableFuture.supplyAsync(() -> controller.launchContainer(cpuCores, memory, vmId), executor);
+            }
+
+            @Override
+            public CompletableFuture<Void> terminateContainerAsync(long id) {
+                return CompletableFuture.runAsync(() -> controller.terminateContainer(id), executor);
+            }
+
+            @Override
+            public CompletableFuture<List<Long>> launchVmsAsync(List<String> types, String dataCenter) {
+                return CompletableFuture.supplyAsync(() -> controller.launchVms(types, dataCenter), executor);
+            }
+
+            @Override
+            public CompletableFuture<Void> terminateVmsAsync(List<Long> ids) {
+                return CompletableFuture.runAsync(() -> controller.terminateVms(ids), executor);
+            }
+
+            @Override
+            public CompletableFuture<List<Long>> launchContainersAsync(List<ContainerLaunch> launches) {
+                return CompletableFuture.supplyAsync(() -> controller.launchContainers(launches), executor);
+            }
+
+            @Override
+            public CompletableFuture<Void> terminateContainersAsync(List<Long> ids) {
+                return CompletableFuture.runAsync(() -> controller.terminateContainers(ids), executor);
+            }
+
+            @Override
+            public long launchVm(String type, String dataCenter) {
+                return controller.launchVm(type, dataCenter);
+            }
+
+            @Override
+            public void terminateVm(long id) {
+                controller.terminateVm(id);
+            }
+
+            @Override
+            public long launchContainer(int cpuCores, long memory, long vmId) {
+                return controller.launchContainer(cpuCores, memory, vmId);
+            }
+
+            @Override
+            public void terminateContainer(long id) {
+                controller.terminateContainer(id);
+            }
+
+            @Override
+            public List<Long> launchVms(List<String> types, String dataCenter) {
+                return controller.launchVms(types, dataCenter);
+            }
+
+            @Override
+            public void terminateVms(List<Long> ids) {
+                controller.terminateVms(ids);
+            }
+
+            @Override
+            public List<Long> launchContainers(List<ContainerLaunch> launches) {
+                return controller.launchContainers(launches);
+            }
+
+            @Override
+            public void terminateContainers(List<Long> ids) {
+                controller.terminateContainers(ids);
+            }
+
+            @Override
+            public void abort() {
+                controller.abort();
+            }
+        };
+    }
+
+}
@@ -1,5 +1,9 @@
 package at.ac.tuwien.dsg.cooper.api;
 
+import java.util.List;
+import java.util.stream.Collectors;
+import lombok.Value;
+
 public interface CloudController {
 
     long launchVm(String type, String dataCenter);
@@ -12,4 +16,41 @@ public interface CloudController {
 
     void abort();
 
+
+    // batch variants, providers supporting bulk requests may override them
+
+    /**
+     * @return the IDs of the launched VMs, in the order of the given types
+     */
+    default List<Long> launchVms(List<String> types, String dataCenter) {
+        return types.stream()
+                .map(type -> launchVm(type, dataCenter))
+                .collect(Collectors.toList());
+    }
+
+    default void terminateVms(List<Long> ids) {
+        ids.forEach(this::terminateVm);
+    }
+
+    /**
+     * @return the IDs of the launched containers, in the order of the given launches
+     */
+    default List<Long> launchContainers(List<ContainerLaunch> launches) {
+        return launches.stream()
+                .map(l -> launchContainer(l.getCpuCores(), l.getMemory(), l.getVmId()))
+                .collect(Collectors.toList());
+    }
+
+    default void terminateContainers(List<Long> ids) {
+        ids.forEach(this::terminateContainer);
+    }
+
+
+    @Value
+    class ContainerLaunch {
+        int cpuCores;
+        long memory;
+        long vmId;
+    }
+
 }
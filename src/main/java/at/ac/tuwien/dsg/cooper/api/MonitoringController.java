@@ -8,4 +8,12 @@ public interface MonitoringController {
 
     MonitoringResult getCurrentLoad(int elapsedSeconds) throws EndOfScenarioException;
 
+    /**
+     * Seconds elapsed at which the load may change next (or the scenario ends), i.e. until then
+     * {@link #getCurrentLoad} yields the same load as for the given time. By default unknown, i.e. immediately.
+     */
+    default int getNextLoadChange(int elapsedSeconds) {
+        return elapsedSeconds;
+    }
+
 }
@@ -1,5 +1,6 @@
 package at.ac.tuwien.dsg.cooper.config;
 
+import at.ac.tuwien.dsg.cooper.interaction.InteractionEngine;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
@@ -12,6 +13,20 @@ public class OptimizationConfig {
 
     private OptimizationAlgorithm strategy;
     private Float gaLatencyWeight;
+    private Integer gaParallelism = 0; // threads evaluating GA fitness; 0 = available processors, 1 = sequential
+    private Integer gaFitnessCacheSize = 4096; // memoized genotype fitness values per GA run; 0 = disabled
+    private Long gaMaxGenerations = 120L;
+    private Integer gaSteadyGenerations = 0; // stop if the best fitness did not improve for as many generations; 0 = disabled
+    private Float gaFitnessThreshold; // stop once the best fitness falls below; null = disabled
+    private Float gaCycleBudgetShare = 0f; // stop after this share of the scheduling cycle interval (wall-clock); 0 = disabled
+    private Boolean gaDomainMutators = false; // capacity-aware container move/scale, VM swap and consolidation mutators
+    private Integer gaIslands = 1; // independently evolved GA populations (island model), each on its own thread
+    private Integer gaMigrationInterval = 10; // generations between migrations among islands
+    private Integer gaMigrants = 2; // best individuals migrating to the next island
+    private Boolean gaWarmStart = false; // seed the GA with the current allocation and the last run's population
+    private InteractionEngine gaInteractionEngine = InteractionEngine.ITERATIVE; // simulation used by the GA fitness
+    private Boolean asyncPlanning = false; // optimize in the background while scheduling cycles continue
+    private Integer executionConcurrency = 8; // batches of cloud operations the executor issues concurrently per dependency stage; 1 = one after another
 
     public enum OptimizationAlgorithm {
         GA,
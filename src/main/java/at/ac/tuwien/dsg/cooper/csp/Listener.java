@@ -8,4 +8,13 @@ public interface Listener {
 
     int getClockInterval(); // seconds
 
+    /**
+     * Clock (seconds) of the next cycle in which this listener may act differently than in an idle cycle, for clouds
+     * skipping cycles (discrete-event simulation). The cycles skipped must not matter to the listener, apart from
+     * the clock having advanced. By default, every cycle.
+     */
+    default long getNextEventClock(long clock) {
+        return clock + getClockInterval();
+    }
+
 }
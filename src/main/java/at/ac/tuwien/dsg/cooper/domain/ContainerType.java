@@ -1,22 +1,30 @@
 package at.ac.tuwien.dsg.cooper.domain;
 
-import lombok.AllArgsConstructor;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 
 @Getter
-@AllArgsConstructor
+@RequiredArgsConstructor
 @EqualsAndHashCode
 public class ContainerType {
 
-    private String label;
+    private final String label;
 
-    private Integer cpuUnits;
+    private final Integer cpuUnits;
 
-    private Integer memory; // MB
+    private final Integer memory; // MB
 
-    private Long rpmCapacity;
+    private final Long rpmCapacity;
 
     private final Service service;
 
+    /**
+     * Dense index of this entity within its {@link at.ac.tuwien.dsg.cooper.scheduler.Model}, assigned by the model.
+     */
+    @Setter
+    @EqualsAndHashCode.Exclude
+    private int ordinal = -1;
+
 }
@@ -4,11 +4,14 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 
 @Getter
 @RequiredArgsConstructor
+@EqualsAndHashCode(of = "name") // names are unique, cf. Model
 public class DataCenter {
 
     private final boolean onPremise;
@@ -21,4 +24,10 @@ public class DataCenter {
 
     private final Map<String, List<VmInstance>> vmsByType = new HashMap<>();
 
+    /**
+     * Dense index of this data center within its {@link at.ac.tuwien.dsg.cooper.scheduler.Model}, assigned by the model.
+     */
+    @Setter
+    private int ordinal = -1;
+
 }
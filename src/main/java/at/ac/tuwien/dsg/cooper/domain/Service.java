@@ -8,11 +8,16 @@ import lombok.RequiredArgsConstructor;
 
 @Data
 @RequiredArgsConstructor
-@EqualsAndHashCode(exclude = "containerTypes")
+@EqualsAndHashCode(exclude = {"containerTypes", "ordinal"})
 public class Service {
 
     private final String name;
 
     private List<ContainerType> containerTypes = new ArrayList<>();
 
+    /**
+     * Dense index of this service within its {@link at.ac.tuwien.dsg.cooper.scheduler.Model}, assigned by the model.
+     */
+    private int ordinal = -1;
+
 }
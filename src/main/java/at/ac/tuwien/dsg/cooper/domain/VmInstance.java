@@ -1,11 +1,12 @@
 package at.ac.tuwien.dsg.cooper.domain;
 
-import lombok.AllArgsConstructor;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 
 @Getter
-@AllArgsConstructor
+@RequiredArgsConstructor
 @EqualsAndHashCode
 public class VmInstance {
 
@@ -15,4 +16,11 @@ public class VmInstance {
 
     private final DataCenter dataCenter;
 
+    /**
+     * Dense index of this entity within its {@link at.ac.tuwien.dsg.cooper.scheduler.Model}, assigned by the model.
+     */
+    @Setter
+    @EqualsAndHashCode.Exclude
+    private int ordinal = -1;
+
 }
@@ -1,10 +1,12 @@
 package at.ac.tuwien.dsg.cooper.domain;
 
 import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 
 @Getter
 @AllArgsConstructor
+@EqualsAndHashCode(of = {"label", "dataCenter"}) // labels are unique per data center
 public class VmType {
 
     private final String label;
@@ -7,13 +7,14 @@ import at.ac.tuwien.dsg.cooper.scheduler.dto.SystemMeasures;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import java.util.List;
+import java.util.stream.Collectors;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 
 
 @RequiredArgsConstructor
-@JsonPropertyOrder({"t", "cost", "accCost", "accLatency", "latency", "interactionCalls", "opt", "imageDownloads", "fitness", "neutralFitness",  "vmCount",  "peakContainerCount", "runtime"})
+@JsonPropertyOrder({"t", "cost", "accCost", "accLatency", "latency", "interactionCalls", "opt", "imageDownloads", "fitness", "neutralFitness",  "vmCount",  "peakContainerCount", "runtime", "planAge", "discardedOptimizations", "repairRate"})
 public class EvaluationRecord {
 
     @Getter
@@ -43,6 +44,15 @@ public class EvaluationRecord {
     @Getter
     private final Long imageDownloads;
 
+    @Getter
+    @Setter
+    private Long discardedOptimizations = 0L; // stale results of asynchronous planning, so far
+
+    @Getter
+    @Setter
+    @JsonIgnore
+    private boolean optimizationPending = false; // an asynchronous optimization was in progress
+
     public int getT() { // in minutes
         return seconds / 60;
     }
@@ -67,9 +77,19 @@ public class EvaluationRecord {
         return currentOptResult == null ? null : currentOptResult.getRuntimeInMilliseconds().floatValue() / 1000f;
     }
 
+    public Long getPlanAge() { // in seconds
+        return currentOptResult == null ? null : currentOptResult.getPlanAge();
+    }
+
+    public Float getRepairRate() {
+        return currentOptResult == null ? null : currentOptResult.getRepairRate();
+    }
+
     public Float getAccLatency() {
-        var totalLatency = records.stream().map(r -> r.getLatency() * r.getInteractionCalls()).reduce(Double::sum).get().floatValue();
-        var totalCalls = records.stream().map(EvaluationRecord::getInteractionCalls).reduce(Integer::sum).get();
+        var simulatedRecords = records.stream().filter(r -> r.getLatency() != null).collect(Collectors.toList());
+        if (simulatedRecords.isEmpty()) return null;
+        var totalLatency = simulatedRecords.stream().map(r -> r.getLatency() * r.getInteractionCalls()).reduce(Double::sum).get().floatValue();
+        var totalCalls = simulatedRecords.stream().map(EvaluationRecord::getInteractionCalls).reduce(Integer::sum).get();
         return totalLatency / totalCalls;
     }
 
@@ -9,8 +9,12 @@ import java.io.*;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -24,6 +28,7 @@ public class EvaluationService {
     private String outputFileName;
 
     private Map<Integer, EvaluationRecord> records = new HashMap<>();
+    private List<EvaluationRecord> savedRecords = Collections.emptyList();
 
     @Autowired
     public EvaluationService(Model model, @Value("${cooper.evaluation-output}") String outputFileName) {
@@ -35,6 +40,7 @@ public class EvaluationService {
     private float accumulatedCost = 0f;
     private float currentAccumulatedCost = 0f;
     private EvaluationRecord currentRecord; // set every 2-minute interval
+    private EvaluationRecord simulatedRecord; // the last one at an even minute, with (attempted) latency simulation
 
     public void sample(EvaluationRecord record) {
         var seconds = record.getSeconds();
@@ -54,10 +60,16 @@ public class EvaluationService {
                 currentRecord = null;
             }
             // set target for new period
-            var simulation = new InteractionSimulation(model, record.getLastOptResult().getAllocation(), record.getMeasures());
-            simulation.simulate();
-            record.setLatency(simulation.getInteractionRecorder().getAverageLatency());
-            record.setInteractionCalls(simulation.getInteractionRecorder().getTotalCalls().intValue());
+            var allocation = record.getLastOptResult().getAllocation();
+            if (simulatedRecord != null && allocation == simulatedRecord.getLastOptResult().getAllocation()
+                    && record.getMeasures() == simulatedRecord.getMeasures()) {
+                // cycles skipped by a discrete-event cloud share allocation and measures
+                record.setLatency(simulatedRecord.getLatency());
+                record.setInteractionCalls(simulatedRecord.getInteractionCalls());
+            } else {
+                simulateLatency(record);
+            }
+            simulatedRecord = record;
             currentRecord = record;
             currentAccumulatedCost = 0f;
         }
@@ -67,7 +79,34 @@ public class EvaluationService {
         }
     }
 
+    private void simulateLatency(EvaluationRecord record) {
+        var simulation = new InteractionSimulation(model, record.getLastOptResult().getAllocation(), record.getMeasures());
+        try {
+            simulation.simulate();
+            record.setLatency(simulation.getInteractionRecorder().getAverageLatency());
+            record.setInteractionCalls(simulation.getInteractionRecorder().getTotalCalls().intValue());
+        } catch (IllegalStateException e) {
+            // with asynchronous planning, the load may exceed the allocation's capacity until a new one is adopted, and
+            // an adopted one was planned for an earlier load
+            var planAge = record.getLastOptResult().getPlanAge();
+            if (!record.isOptimizationPending() && (planAge == null || planAge == 0)) throw e;
+            log.warn("Latency not simulated at {}s, the allocation does not process the load: {}", record.getSeconds(), e.getMessage());
+        }
+    }
+
+    /**
+     * The records written to the evaluation output by {@link #saveToFile()}, in chronological order. Periods completed
+     * afterwards (while the scheduling cycle finishes) are not included.
+     */
+    public List<EvaluationRecord> getRecords() {
+        return savedRecords;
+    }
+
     public void saveToFile() throws IOException {
+        savedRecords = records.values().stream()
+                .sorted(Comparator.comparingInt(EvaluationRecord::getT))
+                .collect(Collectors.toUnmodifiableList());
+
         CsvMapper mapper = new CsvMapper();
         CsvSchema schema = mapper.schemaFor(EvaluationRecord.class)
                 .withColumnSeparator(';')
@@ -0,0 +1,33 @@
+package at.ac.tuwien.dsg.cooper.evaluation;
+
+import at.ac.tuwien.dsg.cooper.config.OptimizationConfig;
+import java.util.Collections;
+import java.util.List;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+
+/**
+ * One run of an {@link ExperimentRunner}: a scenario with a load multiplicator, scheduled by a strategy.
+ */
+@Getter
+@RequiredArgsConstructor
+public class ExperimentResult {
+
+    private final String scenario;
+    private final int multiplicator;
+    private final OptimizationConfig.OptimizationAlgorithm strategy;
+
+    @Setter
+    private List<EvaluationRecord> records = Collections.emptyList();
+    @Setter
+    private String error; // null if the run completed
+    @Setter
+    private double wallTime; // seconds
+
+    @Override
+    public String toString() {
+        return scenario + "@" + multiplicator + "x " + strategy;
+    }
+
+}
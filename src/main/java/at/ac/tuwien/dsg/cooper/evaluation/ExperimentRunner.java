@@ -0,0 +1,251 @@
+package at.ac.tuwien.dsg.cooper.evaluation;
+
+import at.ac.tuwien.dsg.cooper.config.DataCenterConfigMap;
+import at.ac.tuwien.dsg.cooper.config.DataCenterDistanceConfigList;
+import at.ac.tuwien.dsg.cooper.config.OptimizationConfig;
+import at.ac.tuwien.dsg.cooper.config.ServiceConfigMap;
+import at.ac.tuwien.dsg.cooper.scheduler.Initializer;
+import at.ac.tuwien.dsg.cooper.scheduler.Model;
+import at.ac.tuwien.dsg.cooper.scheduler.SchedulingCycle;
+import at.ac.tuwien.dsg.cooper.simulated.SimulatedMonitoringController;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.bind.PropertySourcesPlaceholdersResolver;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.util.StopWatch;
+
+/**
+ * Runs the scenario x load multiplicator x strategy matrix within one JVM, without a Spring context: each run binds its
+ * own configuration (the scenario's YAML files and application.yml) and gets its own model, state and scheduling cycle.
+ * Runs are executed concurrently on a bounded pool; besides the evaluation output of each run, all records are written
+ * to one aggregated CSV file.
+ * <p>
+ * Arguments (all optional): {@code --scenarios=a,b --multiplicators=1,10 --strategies=FF,GA --parallelism=4
+ * --output=evaluation/experiments.csv}; any other {@code --key=value} overrides the property for all runs, e.g.
+ * {@code --cooper.optimization.gaMaxGenerations=50}. Combinations without scenario configuration or load fixture
+ * are skipped.
+ */
+@Slf4j
+public class ExperimentRunner {
+
+    private static final String APPLICATION_CONFIG = "application.yml";
+
+    private final List<String> scenarios;
+    private final List<Integer> multiplicators;
+    private final List<OptimizationConfig.OptimizationAlgorithm> strategies;
+    private final int parallelism;
+    private final String outputFileName;
+    private final Map<String, Object> overrides;
+
+
+    public ExperimentRunner(List<String> scenarios,
+                            List<Integer> multiplicators,
+                            List<OptimizationConfig.OptimizationAlgorithm> strategies,
+                            int parallelism,
+                            String outputFileName,
+                            Map<String, Object> overrides) {
+        this.scenarios = scenarios;
+        this.multiplicators = multiplicators;
+        this.strategies = strategies;
+        this.parallelism = parallelism;
+        this.outputFileName = outputFileName;
+        this.overrides = overrides;
+    }
+
+    public static void main(String[] args) throws IOException {
+        var options = new HashMap<String, String>();
+        for (var arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --key=value, got " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+
+        var scenarios = split(options.remove("scenarios"), "a,b");
+        var multiplicators = split(options.remove("multiplicators"), "1,10,100").stream()
+                .map(Integer::valueOf)
+                .collect(Collectors.toList());
+        var strategies = split(options.remove("strategies"), "FF,GA,GA_NC").stream()
+                .map(s -> OptimizationConfig.OptimizationAlgorithm.valueOf(s.replace('-', '_').toUpperCase()))
+                .collect(Collectors.toList());
+        var parallelism = Integer.parseInt(options.getOrDefault("parallelism",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        options.remove("parallelism");
+        var output = Objects.requireNonNullElse(options.remove("output"), "evaluation/experiments.csv");
+
+        // concurrent runs keep the processors busy, hence the GA evaluates sequentially unless configured otherwise
+        var overrides = new HashMap<String, Object>();
+        if (parallelism > 1) {
+            overrides.put("cooper.optimization.gaParallelism", 1);
+        }
+        overrides.putAll(options);
+
+        new ExperimentRunner(scenarios, multiplicators, strategies, parallelism, output, overrides).run();
+    }
+
+    private static List<String> split(String value, String defaultValue) {
+        return Arrays.asList(Objects.requireNonNullElse(value, defaultValue).split(","));
+    }
+
+
+    public List<ExperimentResult> run() throws IOException {
+        var runs = new ArrayList<ExperimentResult>();
+        for (var scenario : scenarios) {
+            for (var multiplicator : multiplicators) {
+                if (!isAvailable(scenario, multiplicator)) {
+                    log.warn("Skipping scenario {}@{}x, no configuration or load fixture", scenario, multiplicator);
+                    continue;
+                }
+                for (var strategy : strategies) {
+                    runs.add(new ExperimentResult(scenario, multiplicator, strategy));
+                }
+            }
+        }
+        log.info("Running {} experiments on {} threads", runs.size(), parallelism);
+
+        var pool = Executors.newFixedThreadPool(Math.max(1, parallelism));
+        try {
+            var futures = runs.stream()
+                    .map(run -> CompletableFuture.runAsync(() -> execute(run), pool))
+                    .toArray(CompletableFuture[]::new);
+            CompletableFuture.allOf(futures).join(); // completes once all runs are done, even if one failed
+        } finally {
+            pool.shutdown();
+            write(runs);
+        }
+        return runs;
+    }
+
+    private void execute(ExperimentResult run) {
+        log.info("Starting {}", run);
+        var stopWatch = new StopWatch();
+        stopWatch.start();
+        try {
+            var binder = binder(run.getScenario(), run.getMultiplicator(), run.getStrategy(), overrides);
+            var model = model(binder);
+            var config = binder.bind("cooper.optimization", OptimizationConfig.class).get();
+            var monitor = new SimulatedMonitoringController(model, binder.bind("cooper.load-fixture", String.class).get());
+
+            var evaluationOutput = binder.bind("cooper.evaluation-output", String.class).get();
+            var outputDirectory = new File(evaluationOutput).getAbsoluteFile().getParentFile();
+            outputDirectory.mkdirs();
+            var evaluationService = new EvaluationService(model, evaluationOutput);
+
+            var discreteEvent = binder.bind("cooper.discrete-event", Boolean.class).orElse(false);
+            new SchedulingCycle(model, config, monitor, evaluationService, discreteEvent).run();
+
+            run.setRecords(evaluationService.getRecords());
+        } catch (Throwable e) { // e.g. CPLEX not installed, or an ILP run exhausting the heap
+            log.error("Failed {}", run, e);
+            run.setError(e.toString());
+        }
+        stopWatch.stop();
+        run.setWallTime(stopWatch.getTotalTimeSeconds());
+        log.info("Finished {} after {}s", run, run.getWallTime());
+    }
+
+    /**
+     * Binds the run's properties like Spring Boot would: overrides first, then the scenario's YAML files (following
+     * their imports), then application.yml.
+     */
+    public static Binder binder(String scenario,
+                                int multiplicator,
+                                OptimizationConfig.OptimizationAlgorithm strategy,
+                                Map<String, Object> overrides) {
+        var runProperties = new HashMap<String, Object>(overrides);
+        runProperties.put("scenario", scenario);
+        runProperties.put("multiplicator", multiplicator);
+        runProperties.put("strategy", strategy.name());
+
+        var sources = new ArrayList<PropertySource<?>>();
+        sources.add(new MapPropertySource("run", runProperties));
+        loadYaml(scenarioConfig(scenario, multiplicator), sources);
+        loadYaml(APPLICATION_CONFIG, sources);
+
+        return new Binder(ConfigurationPropertySources.from(sources), new PropertySourcesPlaceholdersResolver(sources));
+    }
+
+    private static void loadYaml(String fileName, List<PropertySource<?>> sources) {
+        try {
+            var loaded = new YamlPropertySourceLoader().load(fileName, new ClassPathResource(fileName));
+            sources.addAll(loaded);
+            for (var source : loaded) {
+                var imported = source.getProperty("spring.config.import");
+                if (imported != null && !imported.toString().contains("${")) {
+                    loadYaml(imported.toString(), sources);
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot load " + fileName, e);
+        }
+    }
+
+    /**
+     * Builds the model of the bound scenario, as {@link at.ac.tuwien.dsg.cooper.MainConfig} does.
+     */
+    public static Model model(Binder binder) {
+        var dataCenterConfig = binder.bind("data-centers", Bindable.ofInstance(new DataCenterConfigMap())).get();
+        var distanceConfig = binder.bind("distance", Bindable.ofInstance(new DataCenterDistanceConfigList())).get();
+        var serviceConfig = binder.bind("services", Bindable.ofInstance(new ServiceConfigMap())).get();
+        var scenarioMultiplicator = binder.bind("cooper.scenario-multiplicator", Float.class).get();
+        var loadMultiplicator = binder.bind("cooper.load-multiplicator", Integer.class).get();
+
+        var initializer = new Initializer((int) (scenarioMultiplicator * loadMultiplicator), dataCenterConfig, distanceConfig, serviceConfig);
+        return new Model(initializer.getDataCenters(), initializer.getServices(), initializer.getInteractionMultiplication(), initializer.getDataCenterDistanceGraph());
+    }
+
+    private static boolean isAvailable(String scenario, int multiplicator) {
+        return new ClassPathResource(scenarioConfig(scenario, multiplicator)).exists()
+                && new ClassPathResource("load-fixture/scenario-" + scenario + "@" + multiplicator + "x.csv").exists();
+    }
+
+    private static String scenarioConfig(String scenario, int multiplicator) {
+        return "scenario-" + scenario + "@" + multiplicator + "x.yml";
+    }
+
+    /**
+     * Writes the records of all runs, each prefixed by its run's columns; a failed run yields one row with its error.
+     */
+    private void write(List<ExperimentResult> runs) throws IOException {
+        var mapper = new CsvMapper();
+        var recordSchema = mapper.schemaFor(EvaluationRecord.class).withColumnSeparator(';');
+        var recordWriter = mapper.writer(recordSchema.withoutHeader());
+
+        var file = new File(outputFileName);
+        file.getAbsoluteFile().getParentFile().mkdirs();
+        try (var writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            var recordColumns = new ArrayList<String>();
+            recordSchema.forEach(column -> recordColumns.add(column.getName()));
+            writer.write("scenario;multiplicator;strategy;error;wallTime;" + String.join(";", recordColumns) + "\n");
+
+            for (var run : runs) {
+                var runColumns = String.join(";", run.getScenario(), String.valueOf(run.getMultiplicator()),
+                        run.getStrategy().name(), Objects.toString(run.getError(), "").replaceAll("[;\\r\\n]", " "), String.valueOf(run.getWallTime()));
+                if (run.getRecords().isEmpty()) {
+                    writer.write(runColumns + "\n");
+                }
+                for (var record : run.getRecords()) {
+                    writer.write(runColumns + ";" + recordWriter.writeValueAsString(record));
+                }
+            }
+        }
+        log.info("Successfully wrote aggregated eval output of {} runs to {}", runs.size(), outputFileName);
+    }
+
+}
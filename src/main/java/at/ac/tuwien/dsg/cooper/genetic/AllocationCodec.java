@@ -10,13 +10,21 @@ import io.jenetics.engine.Codec;
 import io.jenetics.util.Factory;
 import io.jenetics.util.ISeq;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.Function;
+import lombok.AccessLevel;
 import lombok.Getter;
 
-@Getter
+/**
+ * Besides the Jenetics codec, holds the primitive lookup tables the genetic operators and the fitness function work on.
+ * They are exposed to this package only; the arrays are shared with {@link Model} and among all threads of a run, so
+ * callers must treat them as read-only.
+ */
+@Getter(AccessLevel.PACKAGE)
 public class AllocationCodec implements Codec<Map<VmInstance, List<ContainerType>>, DistributedIntegerGene> {
 
     private final Model model;
@@ -24,10 +32,29 @@ public class AllocationCodec implements Codec<Map<VmInstance, List<ContainerType
     private int vmCount;
     private int containerTypeCount;
     private int serviceCount;
-    private final Map<VmInstance, Integer> vmsIndex = new HashMap<>();
-    private final Map<Service, Integer> servicesIndex = new HashMap<>();
-
-
+    // array-indexed lookup tables for the primitive (matrix) decode path, indexed by model ordinals
+    private final VmInstance[] vmTable;
+    private final Service[] serviceTable;
+    private final ContainerType[][] containerTable; // [service][zero-based container index]
+    private final int[] vmCpu;
+    private final int[] vmMemory;
+    private final float[] vmCost;
+    private final boolean[] vmAlwaysRunning; // on-premise VMs are running (and cost) regardless of allocation
+    private final int[][] containerCpu;
+    private final int[][] containerMemory;
+    private final long[][] containerRpm;
+    private final int[] serviceLoad;
+
+    private final MatrixValidator matrixValidator;
+
+    @Getter(AccessLevel.NONE)
+    private final ThreadLocal<int[]> matrixBuffer;
+
+
+    /**
+     * Genes are laid out by model ordinals: chromosome s belongs to the service with ordinal s, gene v to the VM
+     * with ordinal v.
+     */
     public AllocationCodec(Model model, SystemMeasures systemMeasures) {
         this.model = model;
         this.systemMeasures = systemMeasures;
@@ -35,15 +62,34 @@ public class AllocationCodec implements Codec<Map<VmInstance, List<ContainerType
         this.containerTypeCount = model.getContainerTypes().size();
         this.serviceCount = model.getServices().size();
 
-        var vmsIterator = model.getVms().values().iterator();
-        var serviceTypes = model.getServices().values().iterator();
-
+        this.vmTable = model.getVmList().toArray(VmInstance[]::new);
+        this.vmCpu = model.getVmCpu();
+        this.vmMemory = model.getVmMemory();
+        this.vmCost = model.getVmCost();
+        this.vmAlwaysRunning = new boolean[vmCount];
         for (int v = 0; v < vmCount; v++) {
-            vmsIndex.put(vmsIterator.next(), v);
+            vmAlwaysRunning[v] = vmTable[v].getDataCenter().isOnPremise();
         }
+
+        this.serviceTable = model.getServiceList().toArray(Service[]::new);
+        this.containerTable = new ContainerType[serviceCount][];
+        this.containerCpu = new int[serviceCount][];
+        this.containerMemory = new int[serviceCount][];
+        this.containerRpm = new long[serviceCount][];
+        this.serviceLoad = new int[serviceCount];
         for (int s = 0; s < serviceCount; s++) {
-            servicesIndex.put(serviceTypes.next(), s);
+            var service = serviceTable[s];
+            var containerOrdinals = model.getServiceContainers()[s];
+            containerTable[s] = service.getContainerTypes().toArray(ContainerType[]::new);
+            containerCpu[s] = Arrays.stream(containerOrdinals).map(c -> model.getContainerCpu()[c]).toArray();
+            containerMemory[s] = Arrays.stream(containerOrdinals).map(c -> model.getContainerMemory()[c]).toArray();
+            containerRpm[s] = Arrays.stream(containerOrdinals).mapToLong(c -> model.getContainerRpm()[c]).toArray();
+            serviceLoad[s] = systemMeasures.getTotalServiceLoad().getOrDefault(service.getName(), 0);
         }
+
+        var matrixSize = serviceCount * vmCount;
+        this.matrixBuffer = ThreadLocal.withInitial(() -> new int[matrixSize]);
+        this.matrixValidator = new MatrixValidator(this);
     }
 
 
@@ -59,58 +105,109 @@ public class AllocationCodec implements Codec<Map<VmInstance, List<ContainerType
 
 
     public Map<VmInstance, List<ContainerType>> serviceRowSquareDecoder(Genotype<DistributedIntegerGene> gt) {
-        var matrix = gt.stream()
-                .map(ch -> ch.stream().map(DistributedIntegerGene::intValue).toArray(Integer[]::new))
-                .toArray(Integer[][]::new);
+        return toAllocationMap(decodeMatrix(gt));
+    }
 
-        var result = new HashMap<VmInstance, List<ContainerType>>();
+    /**
+     * Primitive decode: writes the gene values into the given row-major service x VM matrix, i.e.
+     * {@code matrix[s * vmCount + v]} holds the one-based container index of service s on VM v (0 = none).
+     */
+    public int[] decodeMatrix(Genotype<DistributedIntegerGene> gt, int[] matrix) {
+        for (int s = 0; s < serviceCount; s++) {
+            var chromosome = gt.get(s);
+            var offset = s * vmCount;
+            for (int v = 0; v < vmCount; v++) {
+                matrix[offset + v] = chromosome.get(v).intValue();
+            }
+        }
+        return matrix;
+    }
+
+    /**
+     * Decodes into a buffer owned by the calling thread; the result is overwritten by the thread's next decode and
+     * must not be retained.
+     */
+    public int[] decodeMatrix(Genotype<DistributedIntegerGene> gt) {
+        return decodeMatrix(gt, matrixBuffer.get());
+    }
+
+    public int[] toMatrix(Map<VmInstance, List<ContainerType>> vmContainerMap) {
+        var matrix = new int[serviceCount * vmCount];
+        for (var entry : vmContainerMap.entrySet()) {
+            var vmi = entry.getKey().getOrdinal();
+            for (var container : entry.getValue()) {
+                var si = container.getService().getOrdinal();
+                var zeroBasedContainerIndex = container.getService().getContainerTypes().indexOf(container);
+                matrix[si * vmCount + vmi] = zeroBasedContainerIndex + 1;
+            }
+        }
+        return matrix;
+    }
 
-        vmsIndex.forEach((vm, vmi) -> {
-            var containerList = new ArrayList<ContainerType>();
-            servicesIndex.forEach((service, si) -> {
-                var geneValue = matrix[si][vmi];
+    public Map<VmInstance, List<ContainerType>> toAllocationMap(int[] matrix) {
+        var result = new HashMap<VmInstance, List<ContainerType>>();
+        for (int v = 0; v < vmCount; v++) {
+            List<ContainerType> containerList = null;
+            for (int s = 0; s < serviceCount; s++) {
+                var geneValue = matrix[s * vmCount + v];
                 if (geneValue != 0) {
-                    var zeroBasedIndex = geneValue - 1;
-                    var containerType = service.getContainerTypes().get(zeroBasedIndex);
-                    containerList.add(containerType);
+                    if (containerList == null) containerList = new ArrayList<>();
+                    containerList.add(containerTable[s][geneValue - 1]);
                 }
-            });
-            if (!containerList.isEmpty()) {
-                result.put(vm, containerList);
             }
-        });
-
+            if (containerList != null) {
+                result.put(vmTable[v], containerList);
+            }
+        }
         return result;
     }
 
-    public Genotype<DistributedIntegerGene> serviceRowSquareEncoder(Map<VmInstance, List<ContainerType>> vmContainerMap) {
-        var serviceVmMatrix = new int[servicesIndex.size()][vmsIndex.size()];
+    /**
+     * Flags every service x VM cell (same layout as the allocation matrix) whose container image is cached on the VM.
+     */
+    public boolean[] toImageCacheMatrix(Map<VmInstance, Set<Service>> imageCacheState) {
+        var cached = new boolean[serviceCount * vmCount];
+        for (int v = 0; v < vmCount; v++) {
+            var cachedServices = imageCacheState.getOrDefault(vmTable[v], Set.of());
+            for (int s = 0; s < serviceCount; s++) {
+                cached[s * vmCount + v] = cachedServices.contains(serviceTable[s]);
+            }
+        }
+        return cached;
+    }
 
-        for (var entry : vmContainerMap.entrySet()) {
-            var vm = entry.getKey();
-            var containers = entry.getValue();
-            var vmi = vmsIndex.get(vm);
-
-            containers.forEach(c -> {
-                var service = c.getService();
-                var si = servicesIndex.get(service);
-
-                var zeroBasedContainerIndex = service.getContainerTypes().indexOf(c);
-                var oneBasedContainerIndex = zeroBasedContainerIndex + 1;
-                serviceVmMatrix[si][vmi] = oneBasedContainerIndex;
-            });
+    /**
+     * Packs the service x VM gene matrix of the given genotype into a hashable key.
+     */
+    public GenotypeKey genotypeKey(Genotype<DistributedIntegerGene> gt) {
+        return genotypeKey(decodeMatrix(gt));
+    }
+
+    public GenotypeKey genotypeKey(int[] matrix) {
+        var genes = new short[matrix.length];
+        for (int i = 0; i < matrix.length; i++) {
+            genes[i] = (short) matrix[i];
         }
+        return new GenotypeKey(genes);
+    }
+
+    public Genotype<DistributedIntegerGene> serviceRowSquareEncoder(Map<VmInstance, List<ContainerType>> vmContainerMap) {
+        var matrix = toMatrix(vmContainerMap);
 
         return Genotype.of(
-                model.getServices().values().stream()
-                        .map(s -> DistributedIntegerChromosome.of(s, serviceVmMatrix[servicesIndex.get(s)], model, systemMeasures))
+                model.getServiceList().stream()
+                        .map(s -> {
+                            var offset = s.getOrdinal() * vmCount;
+                            var row = Arrays.copyOfRange(matrix, offset, offset + vmCount);
+                            return DistributedIntegerChromosome.of(s, row, model, systemMeasures);
+                        })
                         .collect(ISeq.toISeq())
         );
     }
 
     public Genotype<DistributedIntegerGene> serviceRowGenotypeFactory() {
         return Genotype.of(
-                model.getServices().values().stream()
+                model.getServiceList().stream()
                         .map(s -> DistributedIntegerChromosome.of(s, vmCount, model, systemMeasures))
                         .collect(ISeq.toISeq())
         );
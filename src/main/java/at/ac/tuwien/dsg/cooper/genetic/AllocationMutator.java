@@ -0,0 +1,100 @@
+package at.ac.tuwien.dsg.cooper.genetic;
+
+import io.jenetics.AbstractAlterer;
+import io.jenetics.AltererResult;
+import io.jenetics.Chromosome;
+import io.jenetics.Genotype;
+import io.jenetics.Phenotype;
+import io.jenetics.util.ISeq;
+import io.jenetics.util.MSeq;
+import io.jenetics.util.RandomRegistry;
+import io.jenetics.util.Seq;
+import java.util.Random;
+
+/**
+ * Base of the allocation-aware mutators: in contrast to gene-wise alterers, a mutation operates on the decoded service
+ * x VM matrix and only applies changes that keep the affected VMs within their {@link ResidualCapacity}, so that
+ * mutated offspring rarely need to be repaired.
+ * <p>
+ * Each individual is mutated with the alterer's probability. Only the chromosomes (service rows) of changed cells are
+ * replaced, unchanged ones are shared with the original genotype (as relied upon by {@link DeltaEvaluator}).
+ */
+public abstract class AllocationMutator extends AbstractAlterer<DistributedIntegerGene, Float> {
+
+    protected final AllocationCodec codec;
+    protected final int vmCount;
+    private final int[] previousMatrix;
+
+
+    protected AllocationMutator(AllocationCodec codec, int[] previousMatrix, double probability) {
+        super(probability);
+        this.codec = codec;
+        this.vmCount = codec.getVmCount();
+        this.previousMatrix = previousMatrix;
+    }
+
+
+    @Override
+    public AltererResult<DistributedIntegerGene, Float> alter(Seq<Phenotype<DistributedIntegerGene, Float>> population, long generation) {
+        var random = RandomRegistry.random();
+        var result = MSeq.of(population);
+        var alterations = 0;
+
+        for (int i = 0; i < result.size(); i++) {
+            if (random.nextDouble() >= _probability) continue;
+
+            var genotype = result.get(i).genotype();
+            var matrix = codec.decodeMatrix(genotype, new int[codec.getServiceCount() * vmCount]);
+            if (mutate(matrix, new ResidualCapacity(codec, matrix, previousMatrix), random) > 0) {
+                var mutated = encodeChanges(genotype, matrix);
+                if (mutated != genotype) {
+                    result.set(i, Phenotype.of(mutated, generation));
+                    alterations++;
+                }
+            }
+        }
+        return AltererResult.of(result.toISeq(), alterations);
+    }
+
+    /**
+     * Mutates the given matrix in place, changing cells via the capacity to keep it up to date.
+     *
+     * @return the number of changed cells
+     */
+    protected abstract int mutate(int[] matrix, ResidualCapacity capacity, Random random);
+
+    /**
+     * Index of a random non-empty matrix cell, or -1 if nothing is allocated.
+     */
+    protected static int randomAllocatedCell(int[] matrix, Random random) {
+        var start = random.nextInt(matrix.length);
+        for (int i = 0; i < matrix.length; i++) {
+            var cell = (start + i) % matrix.length;
+            if (matrix[cell] != 0) return cell;
+        }
+        return -1;
+    }
+
+    private Genotype<DistributedIntegerGene> encodeChanges(Genotype<DistributedIntegerGene> genotype, int[] matrix) {
+        var chromosomes = MSeq.<Chromosome<DistributedIntegerGene>>of(genotype);
+        var changed = false;
+        for (int s = 0; s < chromosomes.size(); s++) {
+            var chromosome = chromosomes.get(s);
+            var offset = s * vmCount;
+            var genes = MSeq.of(chromosome);
+            var rowChanged = false;
+            for (int v = 0; v < vmCount; v++) {
+                if (genes.get(v).intValue() != matrix[offset + v]) {
+                    genes.set(v, genes.get(v).newInstance(matrix[offset + v]));
+                    rowChanged = true;
+                }
+            }
+            if (rowChanged) {
+                chromosomes.set(s, chromosome.newInstance(genes.toISeq()));
+                changed = true;
+            }
+        }
+        return changed ? Genotype.of(chromosomes.toISeq()) : genotype;
+    }
+
+}
@@ -0,0 +1,70 @@
+package at.ac.tuwien.dsg.cooper.genetic;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Moves all containers of an under-utilized VM to another under-utilized VM, if the latter runs none of the same
+ * services and has enough residual capacity. The emptied VM can then be released.
+ */
+public final class ConsolidationMutator extends AllocationMutator {
+
+    private static final double UNDERUTILIZATION_THRESHOLD = 0.5;
+
+    public ConsolidationMutator(AllocationCodec codec, int[] previousMatrix, double probability) {
+        super(codec, previousMatrix, probability);
+    }
+
+    @Override
+    protected int mutate(int[] matrix, ResidualCapacity capacity, Random random) {
+        var candidates = new ArrayList<Integer>();
+        for (int v = 0; v < vmCount; v++) {
+            if (capacity.isUsed(v) && capacity.utilization(v) < UNDERUTILIZATION_THRESHOLD) {
+                candidates.add(v);
+            }
+        }
+        if (candidates.size() < 2) return 0;
+
+        var source = candidates.remove(random.nextInt(candidates.size()));
+        var containers = column(matrix, source);
+        var start = random.nextInt(candidates.size());
+        for (int i = 0; i < candidates.size(); i++) {
+            var target = candidates.get((start + i) % candidates.size());
+            if (!isDisjoint(matrix, source, target)) continue;
+
+            var moved = move(containers, capacity, source, target);
+            if (!capacity.isOverallocated(target)) return moved;
+
+            move(containers, capacity, target, source);
+        }
+        return 0;
+    }
+
+    private int[] column(int[] matrix, int v) {
+        var column = new int[matrix.length / vmCount];
+        for (int s = 0; s < column.length; s++) {
+            column[s] = matrix[s * vmCount + v];
+        }
+        return column;
+    }
+
+    private boolean isDisjoint(int[] matrix, int v, int w) {
+        for (int offset = 0; offset < matrix.length; offset += vmCount) {
+            if (matrix[offset + v] != 0 && matrix[offset + w] != 0) return false;
+        }
+        return true;
+    }
+
+    private int move(int[] containers, ResidualCapacity capacity, int from, int to) {
+        var moved = 0;
+        for (int s = 0; s < containers.length; s++) {
+            if (containers[s] == 0) continue;
+
+            capacity.set(s, from, 0);
+            capacity.set(s, to, containers[s]);
+            moved += 2;
+        }
+        return moved;
+    }
+
+}
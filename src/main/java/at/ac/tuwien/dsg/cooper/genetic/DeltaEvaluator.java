@@ -0,0 +1,161 @@
+package at.ac.tuwien.dsg.cooper.genetic;
+
+import io.jenetics.Genotype;
+import io.jenetics.Phenotype;
+import io.jenetics.engine.Evaluator;
+import io.jenetics.util.ISeq;
+import io.jenetics.util.Seq;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Evaluates a population, deriving the fitness of offspring from an evaluated individual of the previous generation
+ * where possible ({@link FitnessFunction#evalDelta}).
+ * <p>
+ * Jenetics' alterers only replace the chromosomes they alter, unaltered chromosomes are shared with the parent by
+ * reference. The parent of an offspring is therefore taken to be the member of the previous generation sharing the
+ * most chromosomes with it; only its differing chromosomes are compared gene by gene. Offspring too different from
+ * any known individual (e.g. repaired ones) are evaluated in full.
+ * <p>
+ * Offspring are evaluated concurrently on the given executor, while eval itself is called by the engine's single
+ * evolution thread.
+ */
+public class DeltaEvaluator implements Evaluator<DistributedIntegerGene, Float> {
+
+    private static final double MAX_CHANGED_CELL_RATIO = 0.25;
+
+    private final AllocationCodec codec;
+    private final FitnessFunction fitnessFunction;
+    private final FitnessCache<Evaluation> evaluationCache;
+    private final Executor executor;
+    private final int[] previousMatrix;
+    private final boolean[] previousVmUsed;
+    private final boolean[] imageCached;
+    private final boolean skipColocation;
+
+    // evaluated individuals of the previous generation, by genotype identity
+    private Map<Genotype<DistributedIntegerGene>, Evaluation> lastGeneration = new IdentityHashMap<>();
+
+    @Getter
+    private final LongAdder deltaEvaluations = new LongAdder();
+    @Getter
+    private final LongAdder fullEvaluations = new LongAdder();
+
+    @RequiredArgsConstructor
+    static class Evaluation {
+        private final int[] matrix;
+        private final FitnessTerms terms;
+    }
+
+    public DeltaEvaluator(AllocationCodec codec,
+                          FitnessFunction fitnessFunction,
+                          FitnessCache<Evaluation> evaluationCache,
+                          Executor executor,
+                          int[] previousMatrix,
+                          boolean[] imageCached,
+                          boolean skipColocation) {
+        this.codec = codec;
+        this.fitnessFunction = fitnessFunction;
+        this.evaluationCache = evaluationCache;
+        this.executor = executor;
+        this.previousMatrix = previousMatrix;
+        this.previousVmUsed = codec.getMatrixValidator().usedVms(previousMatrix);
+        this.imageCached = imageCached;
+        this.skipColocation = skipColocation;
+    }
+
+
+    @Override
+    public ISeq<Phenotype<DistributedIntegerGene, Float>> eval(Seq<Phenotype<DistributedIntegerGene, Float>> population) {
+        var knownIndividuals = lastGeneration;
+        var futures = new ArrayList<CompletableFuture<Evaluation>>(population.size());
+        for (var phenotype : population) {
+            var known = knownIndividuals.get(phenotype.genotype());
+            if (phenotype.isEvaluated() && known != null) {
+                futures.add(CompletableFuture.completedFuture(known));
+            } else {
+                futures.add(CompletableFuture.supplyAsync(() -> evaluate(phenotype.genotype(), knownIndividuals), executor));
+            }
+        }
+
+        var evaluated = new ArrayList<Phenotype<DistributedIntegerGene, Float>>(population.size());
+        var generation = new IdentityHashMap<Genotype<DistributedIntegerGene>, Evaluation>();
+        for (int i = 0; i < population.size(); i++) {
+            var phenotype = population.get(i);
+            var evaluation = futures.get(i).join();
+            generation.put(phenotype.genotype(), evaluation);
+            evaluated.add(phenotype.isEvaluated() ? phenotype : phenotype.withFitness(fitnessFunction.fitness(evaluation.terms)));
+        }
+        this.lastGeneration = generation;
+
+        return ISeq.of(evaluated);
+    }
+
+    private Evaluation evaluate(Genotype<DistributedIntegerGene> genotype,
+                                Map<Genotype<DistributedIntegerGene>, Evaluation> knownIndividuals) {
+        var matrix = codec.decodeMatrix(genotype, new int[codec.getServiceCount() * codec.getVmCount()]);
+        return evaluationCache.get(codec.genotypeKey(matrix), () -> {
+            var parent = closestKnownIndividual(genotype, knownIndividuals);
+            if (parent != null) {
+                var changedCells = changedCells(genotype, parent.getKey(), parent.getValue().matrix, matrix);
+                if (changedCells != null) {
+                    deltaEvaluations.increment();
+                    var terms = fitnessFunction.evalDelta(codec, parent.getValue().terms, parent.getValue().matrix, matrix,
+                            changedCells, previousMatrix, imageCached, skipColocation);
+                    return new Evaluation(matrix, terms);
+                }
+            }
+            fullEvaluations.increment();
+            return new Evaluation(matrix, fitnessFunction.evalTerms(codec, matrix, previousMatrix, previousVmUsed, imageCached,
+                    skipColocation));
+        });
+    }
+
+    private static Map.Entry<Genotype<DistributedIntegerGene>, Evaluation> closestKnownIndividual(
+            Genotype<DistributedIntegerGene> genotype,
+            Map<Genotype<DistributedIntegerGene>, Evaluation> knownIndividuals) {
+        Map.Entry<Genotype<DistributedIntegerGene>, Evaluation> closest = null;
+        var mostSharedChromosomes = 0;
+        for (var candidate : knownIndividuals.entrySet()) {
+            var sharedChromosomes = 0;
+            for (int s = 0; s < genotype.length(); s++) {
+                if (genotype.get(s) == candidate.getKey().get(s)) sharedChromosomes++;
+            }
+            if (sharedChromosomes > mostSharedChromosomes) {
+                mostSharedChromosomes = sharedChromosomes;
+                closest = candidate;
+            }
+        }
+        return closest;
+    }
+
+    /**
+     * @return indices of the differing cells, or null if too many cells differ for a delta evaluation to pay off
+     */
+    private int[] changedCells(Genotype<DistributedIntegerGene> genotype,
+                               Genotype<DistributedIntegerGene> parent,
+                               int[] parentMatrix,
+                               int[] matrix) {
+        var vmCount = codec.getVmCount();
+        var maxChangedCells = (int) (matrix.length * MAX_CHANGED_CELL_RATIO);
+        var changedCells = new int[maxChangedCells];
+        var count = 0;
+        for (int s = 0; s < genotype.length(); s++) {
+            if (genotype.get(s) == parent.get(s)) continue;
+            for (int i = s * vmCount; i < (s + 1) * vmCount; i++) {
+                if (matrix[i] == parentMatrix[i]) continue;
+                if (count == maxChangedCells) return null;
+                changedCells[count++] = i;
+            }
+        }
+        return Arrays.copyOf(changedCells, count);
+    }
+
+}
@@ -7,6 +7,7 @@ import io.jenetics.NumericGene;
 import io.jenetics.util.ISeq;
 import io.jenetics.util.MSeq;
 import io.jenetics.util.Mean;
+import io.jenetics.util.RandomRegistry;
 import org.apache.commons.math3.distribution.EnumeratedIntegerDistribution;
 
 /**
@@ -112,7 +113,7 @@ public final class DistributedIntegerGene
 
 	@Override
 	public DistributedIntegerGene newInstance() {
-		return DistributedIntegerGene.of(_distribution.sample(), _distribution);
+		return DistributedIntegerGene.of(sample(_distribution), _distribution);
 	}
 
 	@Override
@@ -158,8 +159,17 @@ public final class DistributedIntegerGene
 		final int length
 	) {
 		return MSeq.<DistributedIntegerGene>ofLength(length)
-			.fill(() -> new DistributedIntegerGene(distribution.sample(), distribution))
+			.fill(() -> new DistributedIntegerGene(sample(distribution), distribution))
 			.toISeq();
 	}
 
+	/**
+	 * Draws an allele via inverse transform sampling with the (thread-safe) random engine of the
+	 * {@link RandomRegistry}, since the distribution's own generator must not be shared between
+	 * threads.
+	 */
+	static int sample(final EnumeratedIntegerDistribution distribution) {
+		return distribution.inverseCumulativeProbability(RandomRegistry.random().nextDouble());
+	}
+
 }
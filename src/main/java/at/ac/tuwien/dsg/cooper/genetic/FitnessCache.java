@@ -0,0 +1,97 @@
+package at.ac.tuwien.dsg.cooper.genetic;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded LRU cache of fitness values (or richer evaluation results) by genotype, shared by all evaluation threads of
+ * a GA run.
+ * <p>
+ * Entries are spread over lock-striped segments (each an access-ordered {@link LinkedHashMap}) to keep contention low.
+ * The fitness itself is computed outside of any lock; two threads missing on the same key concurrently may both
+ * evaluate it, which is harmless as the fitness function is deterministic.
+ */
+public class FitnessCache<V> {
+
+    private static final int STRIPES = 16;
+
+    private final List<Segment<V>> segments;
+    private final boolean enabled;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public FitnessCache(int capacity) {
+        this.enabled = capacity > 0;
+        var segmentCapacity = Math.max(1, capacity / STRIPES);
+        var segments = new ArrayList<Segment<V>>(STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            segments.add(new Segment<>(segmentCapacity));
+        }
+        this.segments = List.copyOf(segments);
+    }
+
+    public V get(GenotypeKey key, Supplier<V> fitness) {
+        if (!enabled) {
+            misses.increment();
+            return fitness.get();
+        }
+
+        var segment = segmentFor(key);
+        V cached;
+        synchronized (segment) {
+            cached = segment.get(key);
+        }
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+
+        misses.increment();
+        var value = fitness.get();
+        synchronized (segment) {
+            segment.put(key, value);
+        }
+        return value;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public double getHitRate() {
+        var total = getHits() + getMisses();
+        return total == 0 ? 0 : (double) getHits() / total;
+    }
+
+    private Segment<V> segmentFor(GenotypeKey key) {
+        var h = key.longHash();
+        var spread = (int) (h ^ (h >>> 29) ^ (h >>> 47));
+        return segments.get(Math.floorMod(spread, STRIPES));
+    }
+
+    private static class Segment<V> extends LinkedHashMap<GenotypeKey, V> {
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<GenotypeKey, V> eldest) {
+            return size() > capacity;
+        }
+    }
+
+}
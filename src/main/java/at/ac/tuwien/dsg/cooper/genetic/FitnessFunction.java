@@ -2,17 +2,21 @@ package at.ac.tuwien.dsg.cooper.genetic;
 
 import at.ac.tuwien.dsg.cooper.domain.Service;
 import at.ac.tuwien.dsg.cooper.domain.VmInstance;
-import at.ac.tuwien.dsg.cooper.interaction.InteractionSimulation;
+import at.ac.tuwien.dsg.cooper.interaction.InteractionEngine;
+import at.ac.tuwien.dsg.cooper.interaction.InteractionSimulator;
 import at.ac.tuwien.dsg.cooper.scheduler.Model;
 import at.ac.tuwien.dsg.cooper.scheduler.Validator;
 import at.ac.tuwien.dsg.cooper.scheduler.dto.Allocation;
 import at.ac.tuwien.dsg.cooper.scheduler.dto.SystemMeasures;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.Set;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
-@RequiredArgsConstructor
+/**
+ * Holds no mutable state: every evaluation works on its own {@link Allocation} and {@link InteractionSimulator},
+ * the model, validator and measures are only read. A single instance is shared by all GA evaluation threads.
+ */
 @Slf4j
 public class FitnessFunction {
 
@@ -26,6 +30,20 @@ public class FitnessFunction {
     private static final float W_CONTAINER_IMAGE_CACHING = 0.0001f;
     private static final float W_CONSTRAINT_VIOLATIONS = 1_000f; // prev. 10_000_000f;
 
+    private final InteractionEngine interactionEngine;
+
+
+    public FitnessFunction(Model model, Validator validator, float wLatency) {
+        this(model, validator, wLatency, InteractionEngine.ITERATIVE);
+    }
+
+    public FitnessFunction(Model model, Validator validator, float wLatency, InteractionEngine interactionEngine) {
+        this.model = model;
+        this.validator = validator;
+        this.wLatency = wLatency;
+        this.interactionEngine = interactionEngine;
+    }
+
 
     /**
      * Ignores the previous allocation (w.r.t. grace period cost and overallocation constraints), constituting
@@ -50,22 +68,21 @@ public class FitnessFunction {
         var totalCost = resourceAllocation.getTotalCost();
 
         // Term 2 - Grace Period Cost
-        var gracePeriodCost = previousAllocation == null ? 0 :
-                previousAllocation.getUsedVms().stream()
-                .filter(vm -> !resourceAllocation.getUsedVms().contains(vm))
-                .map(vm -> vm.getType().getCost())
-                .reduce(0f, Float::sum);
+        var gracePeriodCost = 0f;
+        if (previousAllocation != null) {
+            var used = new boolean[model.getVmList().size()]; // indexed by VM ordinal
+            resourceAllocation.getUsedVms().forEach(vm -> used[vm.getOrdinal()] = true);
+            for (var vm : previousAllocation.getUsedVms()) {
+                if (!used[vm.getOrdinal()]) {
+                    gracePeriodCost += model.getVmCost()[vm.getOrdinal()];
+                }
+            }
+        }
 
         // Term 3 - Exploiting Co-Location
         Float latency = null;
         if (enableColocation) {
-            try {
-                var simulation = new InteractionSimulation(model, resourceAllocation, measures);
-                simulation.simulate();
-                latency = simulation.getInteractionRecorder().getAverageLatency().floatValue();
-            } catch (IllegalStateException ex) {
-                latency = W_CONSTRAINT_VIOLATIONS;
-            }
+            latency = simulateLatency(resourceAllocation, measures);
         }
 
 
@@ -125,6 +142,167 @@ public class FitnessFunction {
         }
 
 
+        return weigh(totalCost, gracePeriodCost, latency, overProvisionedCapacity, uncachedContainers, violations);
+    }
+
+    /**
+     * Same objective as {@link #eval(Allocation, Allocation, SystemMeasures, Map, boolean)}, computed on the
+     * service x VM matrix of the given codec. An {@link Allocation} is only built for the co-location simulation.
+     * @param matrix the allocation to evaluate, see {@link AllocationCodec#decodeMatrix}
+     * @param previousMatrix the previous allocation, or null to ignore it
+     * @param imageCached cached container images, see {@link AllocationCodec#toImageCacheMatrix}, or null to ignore
+     */
+    public float eval(AllocationCodec codec,
+                      int[] matrix,
+                      int[] previousMatrix,
+                      boolean[] imageCached,
+                      boolean skipColocation) {
+        return fitness(evalTerms(codec, matrix, previousMatrix, imageCached, skipColocation));
+    }
+
+    public float fitness(FitnessTerms terms) {
+        return weigh(terms.getTotalCost(), terms.getGracePeriodCost(), terms.getLatency(),
+                terms.getOverProvisionedCapacity(), terms.getUncachedContainers(), terms.getViolations());
+    }
+
+    /**
+     * Evaluates all terms of the given matrix from scratch, see {@link #eval(AllocationCodec, int[], int[], boolean[], boolean)}.
+     */
+    public FitnessTerms evalTerms(AllocationCodec codec,
+                                  int[] matrix,
+                                  int[] previousMatrix,
+                                  boolean[] imageCached,
+                                  boolean skipColocation) {
+        var previousVmUsed = codec.getMatrixValidator().usedVms(previousMatrix);
+        return evalTerms(codec, matrix, previousMatrix, previousVmUsed, imageCached, skipColocation);
+    }
+
+    /**
+     * @param previousVmUsed the VMs used by the previous matrix, see {@link MatrixValidator#usedVms}, computed once
+     *                       for all evaluations against the same previous matrix
+     */
+    public FitnessTerms evalTerms(AllocationCodec codec,
+                                  int[] matrix,
+                                  int[] previousMatrix,
+                                  boolean[] previousVmUsed,
+                                  boolean[] imageCached,
+                                  boolean skipColocation) {
+        var vmCount = codec.getVmCount();
+        var serviceCount = codec.getServiceCount();
+        var containerRpm = codec.getContainerRpm();
+        var terms = new FitnessTerms(vmCount, serviceCount, previousVmUsed);
+
+        long uncachedContainers = 0L;
+        for (int s = 0; s < serviceCount; s++) {
+            for (int v = 0; v < vmCount; v++) {
+                var i = s * vmCount + v;
+                var gene = matrix[i];
+                if (gene == 0) continue;
+                terms.getVmContainers()[v]++;
+                terms.getServiceContainers()[s]++;
+                terms.getServiceCapacity()[s] += containerRpm[s][gene - 1];
+                if (imageCached != null && !imageCached[i]) uncachedContainers++;
+            }
+        }
+        terms.addUncachedContainers(uncachedContainers);
+
+        var matrixValidator = codec.getMatrixValidator();
+        for (int v = 0; v < vmCount; v++) {
+            terms.getVmOverallocated()[v] = terms.getVmContainers()[v] > 0
+                    && matrixValidator.isVmOverallocated(matrix, previousMatrix, v);
+        }
+
+        if (!skipColocation) {
+            terms.setLatency(simulateLatency(new Allocation(model, codec.toAllocationMap(matrix)), codec.getSystemMeasures()));
+        }
+
+        terms.aggregate(codec);
+        return terms;
+    }
+
+    /**
+     * Derives the terms of a matrix from the terms of a (parent) matrix it differs from in a few cells only: solely
+     * the VMs and services of the changed cells are revisited. The co-location term can not be derived and is
+     * simulated again if considered.
+     * @param parentTerms terms of the parent matrix, evaluated against the same previous matrix
+     * @param changedCells indices of all cells in which matrix and parentMatrix differ, in ascending order
+     */
+    public FitnessTerms evalDelta(AllocationCodec codec,
+                                  FitnessTerms parentTerms,
+                                  int[] parentMatrix,
+                                  int[] matrix,
+                                  int[] changedCells,
+                                  int[] previousMatrix,
+                                  boolean[] imageCached,
+                                  boolean skipColocation) {
+        var vmCount = codec.getVmCount();
+        var containerRpm = codec.getContainerRpm();
+        var terms = parentTerms.copy();
+
+        var touchedVms = new int[changedCells.length];
+        var touchedServices = new int[changedCells.length];
+        for (int c = 0; c < changedCells.length; c++) {
+            touchedServices[c] = changedCells[c] / vmCount;
+            touchedVms[c] = changedCells[c] % vmCount;
+        }
+        touchedVms = distinct(touchedVms);
+        touchedServices = distinct(touchedServices);
+        terms.retract(codec, touchedVms, touchedServices);
+
+        long uncachedContainers = 0L;
+        for (var i : changedCells) {
+            var s = i / vmCount;
+            var v = i % vmCount;
+            var oldGene = parentMatrix[i];
+            var newGene = matrix[i];
+            var delta = (newGene != 0 ? 1 : 0) - (oldGene != 0 ? 1 : 0);
+
+            terms.getVmContainers()[v] += delta;
+            terms.getServiceContainers()[s] += delta;
+            terms.getServiceCapacity()[s] += (newGene == 0 ? 0 : containerRpm[s][newGene - 1])
+                    - (oldGene == 0 ? 0 : containerRpm[s][oldGene - 1]);
+            if (imageCached != null && !imageCached[i]) uncachedContainers += delta;
+        }
+        terms.addUncachedContainers(uncachedContainers);
+
+        var matrixValidator = codec.getMatrixValidator();
+        for (var v : touchedVms) {
+            terms.getVmOverallocated()[v] = terms.getVmContainers()[v] > 0
+                    && matrixValidator.isVmOverallocated(matrix, previousMatrix, v);
+        }
+
+        if (!skipColocation) {
+            terms.setLatency(simulateLatency(new Allocation(model, codec.toAllocationMap(matrix)), codec.getSystemMeasures()));
+        }
+
+        terms.contribute(codec, touchedVms, touchedServices);
+        return terms;
+    }
+
+    private static int[] distinct(int[] values) {
+        Arrays.sort(values);
+        var count = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (i == 0 || values[i] != values[i - 1]) values[count++] = values[i];
+        }
+        return Arrays.copyOf(values, count);
+    }
+
+    private Float simulateLatency(Allocation resourceAllocation, SystemMeasures measures) {
+        try {
+            var simulation = interactionEngine.create(model, resourceAllocation, measures);
+            simulation.simulate();
+            return simulation.getInteractionRecorder().getAverageLatency().floatValue();
+        } catch (IllegalStateException ex) {
+            return W_CONSTRAINT_VIOLATIONS;
+        }
+    }
+
+    /**
+     * @param latency the average latency, or null if co-location is not considered
+     */
+    private float weigh(float totalCost, float gracePeriodCost, Float latency, long overProvisionedCapacity,
+                        long uncachedContainers, long violations) {
         var term1_cost = totalCost * W_COST;
         var term2_gracePeriodCost = gracePeriodCost * W_GRACE_PERIOD_WASTE;
 //        var term3_colocation = distanceBonus * 0.5f;
@@ -135,7 +313,7 @@ public class FitnessFunction {
         var fitness = term1_cost + term2_gracePeriodCost + term4_overProvisioning + term5_uncachedContainerImages
                 + term6_constraintViolations;
 
-        if (enableColocation) {
+        if (latency != null) {
             var term3_colocation = (latency * wLatency);
 //            var term3_colocation = (distanceBonus * wLatency);
             fitness += term3_colocation;
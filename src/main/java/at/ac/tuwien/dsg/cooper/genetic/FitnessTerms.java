@@ -0,0 +1,138 @@
+package at.ac.tuwien.dsg.cooper.genetic;
+
+import lombok.Getter;
+
+/**
+ * Breakdown of the fitness of a service x VM allocation matrix into its (unweighted) terms, together with the
+ * per-VM and per-service state they are aggregated from. Allows {@link FitnessFunction#evalDelta} to derive the
+ * terms of a slightly altered matrix by only revisiting the touched VMs and services: their share is retracted from the
+ * aggregated terms, their state updated and their share contributed again.
+ * <p>
+ * Instances are not modified once computed and may be shared between threads.
+ */
+@Getter
+public class FitnessTerms {
+
+    // per VM (by ordinal)
+    private final int[] vmContainers;
+    private final boolean[] vmOverallocated;
+    private final boolean[] previousVmUsed; // VMs used by the previous allocation, shared; null if not considered
+    // per service (by ordinal)
+    private final long[] serviceCapacity;
+    private final int[] serviceContainers;
+
+    private long uncachedContainers;
+    private Float latency; // null if co-location is not considered
+
+    // aggregated from the above, costs summed up in double precision as they are updated incrementally
+    private double totalCost;
+    private double gracePeriodCost;
+    private long overProvisionedCapacity;
+    private long overallocatedVms;
+    private long underprovisioning;
+
+    FitnessTerms(int vmCount, int serviceCount, boolean[] previousVmUsed) {
+        this.vmContainers = new int[vmCount];
+        this.vmOverallocated = new boolean[vmCount];
+        this.previousVmUsed = previousVmUsed;
+        this.serviceCapacity = new long[serviceCount];
+        this.serviceContainers = new int[serviceCount];
+    }
+
+    private FitnessTerms(FitnessTerms toClone) {
+        this.vmContainers = toClone.vmContainers.clone();
+        this.vmOverallocated = toClone.vmOverallocated.clone();
+        this.previousVmUsed = toClone.previousVmUsed;
+        this.serviceCapacity = toClone.serviceCapacity.clone();
+        this.serviceContainers = toClone.serviceContainers.clone();
+        this.uncachedContainers = toClone.uncachedContainers;
+        this.latency = toClone.latency;
+        this.totalCost = toClone.totalCost;
+        this.gracePeriodCost = toClone.gracePeriodCost;
+        this.overProvisionedCapacity = toClone.overProvisionedCapacity;
+        this.overallocatedVms = toClone.overallocatedVms;
+        this.underprovisioning = toClone.underprovisioning;
+    }
+
+    FitnessTerms copy() {
+        return new FitnessTerms(this);
+    }
+
+    public float getTotalCost() {
+        return (float) totalCost;
+    }
+
+    public float getGracePeriodCost() {
+        return (float) gracePeriodCost;
+    }
+
+    public long getViolations() {
+        return overallocatedVms + underprovisioning;
+    }
+
+    void addUncachedContainers(long delta) {
+        uncachedContainers += delta;
+    }
+
+    void setLatency(Float latency) {
+        this.latency = latency;
+    }
+
+    /**
+     * Computes the aggregated terms from the per-VM and per-service state.
+     */
+    void aggregate(AllocationCodec codec) {
+        totalCost = 0d;
+        gracePeriodCost = 0d;
+        overallocatedVms = 0L;
+        for (int v = 0; v < vmContainers.length; v++) {
+            aggregateVm(codec, v, 1);
+        }
+
+        overProvisionedCapacity = 0L;
+        underprovisioning = 0L;
+        for (int s = 0; s < serviceCapacity.length; s++) {
+            aggregateService(codec, s, 1);
+        }
+    }
+
+    /**
+     * Removes the given VMs and services from the aggregated terms, before their state is changed.
+     */
+    void retract(AllocationCodec codec, int[] vms, int[] services) {
+        for (var v : vms) aggregateVm(codec, v, -1);
+        for (var s : services) aggregateService(codec, s, -1);
+    }
+
+    /**
+     * Adds the given VMs and services to the aggregated terms, after their state was changed.
+     */
+    void contribute(AllocationCodec codec, int[] vms, int[] services) {
+        for (var v : vms) aggregateVm(codec, v, 1);
+        for (var s : services) aggregateService(codec, s, 1);
+    }
+
+    private void aggregateVm(AllocationCodec codec, int v, int sign) {
+        var used = vmContainers[v] > 0;
+        if (used || codec.getVmAlwaysRunning()[v]) {
+            totalCost += sign * codec.getVmCost()[v];
+        }
+        if (!used && previousVmUsed != null && previousVmUsed[v]) {
+            gracePeriodCost += sign * codec.getVmCost()[v];
+        }
+        if (used && vmOverallocated[v]) {
+            overallocatedVms += sign;
+        }
+    }
+
+    private void aggregateService(AllocationCodec codec, int s, int sign) {
+        var serviceLoad = codec.getServiceLoad()[s];
+        if (serviceContainers[s] > 0) {
+            overProvisionedCapacity += sign * Math.abs(serviceCapacity[s] - serviceLoad);
+        }
+        if (serviceCapacity[s] < serviceLoad) {
+            underprovisioning += sign * (serviceLoad - serviceCapacity[s]);
+        }
+    }
+
+}
@@ -12,11 +12,19 @@ import at.ac.tuwien.dsg.cooper.scheduler.dto.OptResult;
 import at.ac.tuwien.dsg.cooper.scheduler.dto.SystemMeasures;
 import io.jenetics.*;
 import io.jenetics.engine.Engine;
-import io.jenetics.engine.EvolutionResult;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.function.Function;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 
@@ -27,38 +35,150 @@ public class GeneticAlgorithmOptimizer implements Optimizer {
     private final OptimizationConfig config;
     private final Validator validator;
     private final FitnessFunction fitnessFunctionInstance;
+    private final ExecutorService evaluationPool; // null if evaluated on the calling thread
+    private final Executor evaluationExecutor;
+    private final ExecutorService islandExecutor;
+
+    @Getter
+    private FitnessCache<?> lastFitnessCache;
+
+    // (decoded) final population of the last run, best first; re-encoded as seed of the next run if warm start is enabled
+    private volatile List<Map<VmInstance, List<ContainerType>>> lastPopulation = List.of();
+
+    private static final int POPULATION_SIZE = 25;
+
+    // wall-clock time available per scheduling cycle, if known
+    @Setter
+    private Duration cycleBudget;
 
     public GeneticAlgorithmOptimizer(Model model, OptimizationConfig config, Validator validator) {
         this.model = model;
         this.config = config;
 
         this.validator = validator;
-        this.fitnessFunctionInstance = new FitnessFunction(model, validator, config.getGaLatencyWeight());
+        this.fitnessFunctionInstance = new FitnessFunction(model, validator, config.getGaLatencyWeight(), config.getGaInteractionEngine());
+        this.evaluationPool = buildEvaluationPool(config.getGaParallelism());
+        this.evaluationExecutor = evaluationPool == null ? Runnable::run : evaluationPool;
+        this.islandExecutor = config.getGaIslands() > 1 ? new ForkJoinPool(config.getGaIslands()) : null;
+    }
+
+    /**
+     * Offspring of a generation are evaluated concurrently on this executor (one task per individual, see
+     * {@link DeltaEvaluator}). A parallelism of 1 evaluates on the calling thread, which keeps runs reproducible for
+     * debugging.
+     */
+    private static ExecutorService buildEvaluationPool(Integer parallelism) {
+        if (parallelism != null && parallelism == 1) {
+            return null;
+        }
+        var threads = parallelism == null || parallelism <= 0 ? Runtime.getRuntime().availableProcessors() : parallelism;
+        log.debug("Evaluating GA fitness on {} threads", threads);
+        return new ForkJoinPool(threads);
+    }
+
+    /**
+     * Releases the evaluation and island threads, the optimizer must not be used afterwards.
+     */
+    public void shutdown() {
+        if (evaluationPool != null) evaluationPool.shutdown();
+        if (islandExecutor != null) islandExecutor.shutdown();
     }
 
     public OptResult optimize(Allocation previousAllocation, SystemMeasures systemMeasures, Map<VmInstance, Set<Service>> imageCacheState) {
         var codec = new AllocationCodec(model, systemMeasures);
 
-        var repairingConstraint = new RepairingConstraint(model, systemMeasures, validator, codec, previousAllocation);
-
-        var fitnessFunction = new Function<Map<VmInstance, List<ContainerType>>, Float>() {
-            @Override
-            public Float apply(Map<VmInstance, List<ContainerType>> allocationMap) {
-                return fitnessFunctionInstance.eval(
-                        new Allocation(model, allocationMap),
-                        previousAllocation,
-                        systemMeasures,
-                        imageCacheState,
-                        config.getStrategy() == OptimizationConfig.OptimizationAlgorithm.GA_NC
-                );
-            }
-        };
+        // evaluated on the primitive service x VM matrix, previous allocation and image cache state are converted once
+        var previousMatrix = previousAllocation == null ? null : codec.toMatrix(previousAllocation.getAllocationMap());
+        var imageCached = imageCacheState == null ? null : codec.toImageCacheMatrix(imageCacheState);
+        var skipColocation = config.getStrategy() == OptimizationConfig.OptimizationAlgorithm.GA_NC;
+
+        // identical genotypes re-appear frequently (elitism, low mutation rates), evaluate each only once per run
+        // (shared by all islands)
+        var fitnessCache = new FitnessCache<DeltaEvaluator.Evaluation>(config.getGaFitnessCacheSize());
+
+        var islandCount = islandExecutor == null ? 1 : config.getGaIslands();
+        var islands = new ArrayList<Island>(islandCount);
+        for (int i = 0; i < islandCount; i++) {
+            // codecs and constraints hold (thread-local) scratch state, each island gets its own
+            var islandCodec = i == 0 ? codec : new AllocationCodec(model, systemMeasures);
+            var repairingConstraint = new RepairingConstraint(model, systemMeasures, validator, islandCodec, previousAllocation);
+            // offspring mostly differ from a parent in a few genes, derive their fitness from the parent's terms;
+            // islands already run concurrently, their offspring are evaluated sequentially
+            var evaluator = new DeltaEvaluator(islandCodec, fitnessFunctionInstance, fitnessCache,
+                    islandCount == 1 ? evaluationExecutor : Runnable::run, previousMatrix, imageCached, skipColocation);
+            var engine = buildEngine(islandCodec, evaluator, repairingConstraint, previousMatrix);
+
+            islands.add(new Island(engine, evaluator, repairingConstraint, buildTerminationPolicy(),
+                    warmStartSeeds(islandCodec, previousAllocation, i, islandCount)));
+        }
+
+        if (islandCount == 1) {
+            islands.get(0).evolve(Long.MAX_VALUE);
+        } else {
+            evolveIslands(islands);
+        }
+
+        var bestIsland = islands.stream()
+                .min(Comparator.comparing(island -> island.getBest().fitness()))
+                .orElseThrow();
+        var bestPhenotype = bestIsland.getBest();
+        var terminationPolicy = bestIsland.getTerminationPolicy();
+
+        if (config.getGaWarmStart()) {
+            this.lastPopulation = islands.stream()
+                    .flatMap(island -> island.getPopulation().stream())
+                    .sorted(Comparator.comparing(Phenotype::fitness))
+                    .map(pt -> codec.decode(pt.genotype()))
+                    .distinct()
+                    .collect(Collectors.toList());
+        }
 
-        var bestPhenotype = Engine
-                .builder(fitnessFunction, codec)
+        log.debug("Result fitness: {} after {} generations ({}) on {} island(s)", bestPhenotype.fitness(),
+                terminationPolicy.getGenerations(), terminationPolicy.getReason(), islandCount);
+        var repairs = islands.stream().mapToLong(island -> island.getRepairingConstraint().getRepairs().sum()).sum();
+        var individuals = islands.stream().mapToLong(island -> island.getTerminationPolicy().getGenerations()).sum()
+                * POPULATION_SIZE;
+        var repairRate = individuals == 0 ? 0f : (float) repairs / individuals;
+        log.debug("Repaired {} individuals ({} of all generations)", repairs, repairRate);
+        log.debug("Fitness cache: {} hits, {} misses; {} delta, {} full evaluations", fitnessCache.getHits(),
+                fitnessCache.getMisses(),
+                islands.stream().mapToLong(island -> island.getEvaluator().getDeltaEvaluations().sum()).sum(),
+                islands.stream().mapToLong(island -> island.getEvaluator().getFullEvaluations().sum()).sum());
+        this.lastFitnessCache = fitnessCache;
+
+        var decodedAllocationMapping = codec.decode(bestPhenotype.genotype());
+
+        var optResult = new OptResult(model, systemMeasures, decodedAllocationMapping);
+        optResult.setGenerations(terminationPolicy.getGenerations());
+        optResult.setTerminationReason(String.valueOf(terminationPolicy.getReason()));
+        optResult.setRepairRate(repairRate);
+        return optResult;
+    }
+
+    private Engine<DistributedIntegerGene, Float> buildEngine(AllocationCodec codec, DeltaEvaluator evaluator,
+                                                              RepairingConstraint repairingConstraint, int[] previousMatrix) {
+        // blind gene-wise mutations mostly overallocate VMs; next to the capacity-aware moves, they only remain for
+        // exploration, at a lower rate
+        var blindMutationRate = config.getGaDomainMutators() ? 0.01 : 0.05;
+        var alterer = Alterer.of(
+                new UniformCrossover<DistributedIntegerGene, Float>(0.05, 0.05),
+                new SwapMutator<DistributedIntegerGene, Float>(blindMutationRate),
+                new Mutator<DistributedIntegerGene, Float>(blindMutationRate)
+        );
+        if (config.getGaDomainMutators()) {
+            // capacity-aware moves, offspring mostly stay feasible without repair
+            alterer = alterer.andThen(Alterer.of(
+                    new MoveContainerMutator(codec, previousMatrix, 0.1),
+                    new VerticalScalingMutator(codec, previousMatrix, 0.1),
+                    new VmSwapMutator(codec, previousMatrix, 0.05),
+                    new ConsolidationMutator(codec, previousMatrix, 0.05)
+            ));
+        }
+
+        return new Engine.Builder<>(evaluator, codec.encoding())
                 .minimizing()
                 .constraint(repairingConstraint)
-                .populationSize(25)
+                .populationSize(POPULATION_SIZE)
                 .survivorsFraction(0.5)
                 .maximalPhenotypeAge(60)
                 .survivorsSelector(
@@ -69,25 +189,71 @@ public class GeneticAlgorithmOptimizer implements Optimizer {
                 .offspringSelector(
                         new RouletteWheelSelector<>()
                 )
-                .alterers(
-                        new UniformCrossover<>(0.05, 0.05),
-                        new SwapMutator<>(0.05),
-                        new Mutator<>(0.05)
-                )
-                .build()
-                .stream()
-                // at least 250 generations AND a valid result must be found
-//                .limit(new ValidatedGenerationLimit(250, mapping, allocationMap ->
-//                        validator.isAllocationValid(new Allocation(model, allocationMap), previousAllocation, systemMeasures.getTotalServiceLoad())))
-                .limit(120)
-//                .peek(c -> log.info("generation {}", c.generation()))
-                .collect(EvolutionResult.toBestPhenotype());
+                .alterers(alterer)
+                .build();
+    }
 
-        log.debug("Result fitness: {}", bestPhenotype.fitness());
+    /**
+     * Island model: the islands evolve independently (in parallel) for an epoch of generations each, then the best
+     * individuals of every island migrate to its successor on a ring, replacing the successor's worst. Islands
+     * explore different regions of the search space, migration spreads good building blocks between them. Runs until
+     * all islands are finished.
+     */
+    private void evolveIslands(List<Island> islands) {
+        while (islands.stream().anyMatch(island -> !island.isFinished())) {
+            var epoch = islands.stream()
+                    .filter(island -> !island.isFinished())
+                    .map(island -> CompletableFuture.runAsync(() -> island.evolve(config.getGaMigrationInterval()), islandExecutor))
+                    .toArray(CompletableFuture[]::new);
+            CompletableFuture.allOf(epoch).join();
 
-        var decodedAllocationMapping = codec.decode(bestPhenotype.genotype());
+            var emigrants = islands.stream()
+                    .map(island -> island.fittest(config.getGaMigrants()))
+                    .collect(Collectors.toList());
+            for (int i = 0; i < islands.size(); i++) {
+                islands.get((i + 1) % islands.size()).immigrate(emigrants.get(i));
+            }
+        }
+    }
+
+    /**
+     * Small problems converge long before the generation limit; large ones must not overrun the scheduling cycle,
+     * hence the run may end at a share of the cycle budget at the latest. All but the generation limit are opt-in:
+     * they change the results of a run, the deadline also makes them depend on the machine's speed.
+     */
+    private TerminationPolicy buildTerminationPolicy() {
+        var policy = new TerminationPolicy().maxGenerations(config.getGaMaxGenerations());
+        if (config.getGaSteadyGenerations() > 0) {
+            policy.steadyFitness(config.getGaSteadyGenerations());
+        }
+        if (config.getGaFitnessThreshold() != null) {
+            policy.fitnessThreshold(config.getGaFitnessThreshold());
+        }
+        if (cycleBudget != null && config.getGaCycleBudgetShare() > 0) {
+            policy.deadline(Duration.ofMillis((long) (cycleBudget.toMillis() * config.getGaCycleBudgetShare())));
+        }
+        return policy;
+    }
+
+    /**
+     * Consecutive runs mostly differ in a few percent of load only: seeds the initial population with the current
+     * allocation and the last run's population, re-encoded w.r.t. the current measures. The engine fills up the
+     * population with random individuals if there are fewer seeds. With multiple islands, each island is seeded with
+     * the current allocation and its share of the last population.
+     */
+    private List<Genotype<DistributedIntegerGene>> warmStartSeeds(AllocationCodec codec, Allocation previousAllocation,
+                                                                  int island, int islandCount) {
+        var seeds = new ArrayList<Genotype<DistributedIntegerGene>>();
+        if (!config.getGaWarmStart()) return seeds;
 
-        return new OptResult(model, systemMeasures, decodedAllocationMapping);
+        if (previousAllocation != null) {
+            seeds.add(codec.serviceRowSquareEncoder(previousAllocation.getAllocationMap()));
+        }
+        var population = lastPopulation;
+        for (int i = island; i < population.size() && seeds.size() < POPULATION_SIZE; i += islandCount) {
+            seeds.add(codec.serviceRowSquareEncoder(population.get(i)));
+        }
+        return seeds;
     }
 
 }
@@ -0,0 +1,48 @@
+package at.ac.tuwien.dsg.cooper.genetic;
+
+import java.util.Arrays;
+
+/**
+ * Compact snapshot of a genotype's service x VM gene matrix (row-major, one short per gene) with a precomputed
+ * 64-bit hash. Used as key for memoizing fitness values of already evaluated genotypes.
+ */
+public final class GenotypeKey {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final short[] genes;
+    private final long hash;
+
+    GenotypeKey(short[] genes) {
+        this.genes = genes;
+        this.hash = hash(genes);
+    }
+
+    private static long hash(short[] genes) {
+        var h = FNV_OFFSET_BASIS;
+        for (var gene : genes) {
+            h ^= gene;
+            h *= FNV_PRIME;
+        }
+        return h;
+    }
+
+    public long longHash() {
+        return hash;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) return true;
+        if (!(obj instanceof GenotypeKey)) return false;
+        var other = (GenotypeKey) obj;
+        return other.hash == hash && Arrays.equals(other.genes, genes);
+    }
+
+}
@@ -0,0 +1,97 @@
+package at.ac.tuwien.dsg.cooper.genetic;
+
+import io.jenetics.Genotype;
+import io.jenetics.Phenotype;
+import io.jenetics.engine.Engine;
+import io.jenetics.engine.EvolutionResult;
+import io.jenetics.engine.EvolutionStart;
+import io.jenetics.util.ISeq;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import lombok.Getter;
+
+/**
+ * A population evolved by its own engine, in epochs of a number of generations. Between epochs, individuals may
+ * migrate from other islands (see {@link GeneticAlgorithmOptimizer}).
+ * <p>
+ * An island is evolved by one thread at a time; it is finished once its termination policy says so.
+ */
+class Island {
+
+    private final Engine<DistributedIntegerGene, Float> engine;
+    @Getter
+    private final DeltaEvaluator evaluator;
+    @Getter
+    private final RepairingConstraint repairingConstraint;
+    @Getter
+    private final TerminationPolicy terminationPolicy;
+    private final List<Genotype<DistributedIntegerGene>> seeds;
+
+    private EvolutionResult<DistributedIntegerGene, Float> lastResult;
+    private EvolutionStart<DistributedIntegerGene, Float> nextStart;
+
+    @Getter
+    private Phenotype<DistributedIntegerGene, Float> best;
+    @Getter
+    private boolean finished = false;
+
+
+    Island(Engine<DistributedIntegerGene, Float> engine, DeltaEvaluator evaluator,
+           RepairingConstraint repairingConstraint, TerminationPolicy terminationPolicy,
+           List<Genotype<DistributedIntegerGene>> seeds) {
+        this.engine = engine;
+        this.evaluator = evaluator;
+        this.repairingConstraint = repairingConstraint;
+        this.terminationPolicy = terminationPolicy;
+        this.seeds = seeds;
+    }
+
+
+    /**
+     * Evolves at most the given number of generations, less if the termination policy ends the evolution.
+     */
+    void evolve(long generations) {
+        var start = nextStart;
+        var results = (start == null ? engine.stream(seeds) : engine.stream(() -> start)).iterator();
+
+        for (long i = 0; i < generations && !finished; i++) {
+            lastResult = results.next();
+            var fittest = lastResult.bestPhenotype();
+            if (best == null || fittest.fitness() < best.fitness()) {
+                best = fittest;
+            }
+            finished = !terminationPolicy.test(lastResult);
+        }
+        nextStart = lastResult.next();
+    }
+
+    /**
+     * The given number of best individuals of the current population.
+     */
+    List<Phenotype<DistributedIntegerGene, Float>> fittest(int count) {
+        return getPopulation().stream()
+                .sorted(Comparator.comparing(Phenotype::fitness))
+                .limit(count)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Replaces the worst individuals of the current population by the given (evaluated) ones.
+     */
+    void immigrate(List<Phenotype<DistributedIntegerGene, Float>> immigrants) {
+        if (finished || immigrants.isEmpty()) return;
+
+        var population = nextStart.population().stream()
+                .sorted(Comparator.comparing(Phenotype::fitness))
+                .limit(Math.max(0, nextStart.population().size() - immigrants.size()))
+                .collect(Collectors.toList());
+        population.addAll(immigrants);
+        nextStart = EvolutionStart.of(ISeq.of(population), nextStart.generation());
+    }
+
+    ISeq<Phenotype<DistributedIntegerGene, Float>> getPopulation() {
+        return lastResult.population();
+    }
+
+}
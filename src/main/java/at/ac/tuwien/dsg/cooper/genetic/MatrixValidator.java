@@ -0,0 +1,125 @@
+package at.ac.tuwien.dsg.cooper.genetic;
+
+import at.ac.tuwien.dsg.cooper.scheduler.Validator;
+
+/**
+ * Counterpart of {@link Validator} operating directly on the service x VM allocation matrix of an
+ * {@link AllocationCodec}, without materializing an allocation per individual. Yields the same violation counts.
+ * <p>
+ * A {@code null} previous matrix ignores the previous allocation (i.e., neutral violations).
+ */
+public class MatrixValidator {
+
+    private final int vmCount;
+    private final int serviceCount;
+    private final int[] vmCpu;
+    private final int[] vmMemory;
+    private final int[][] containerCpu;
+    private final int[][] containerMemory;
+    private final long[][] containerRpm;
+    private final int[] serviceLoad;
+
+    MatrixValidator(AllocationCodec codec) {
+        this.vmCount = codec.getVmCount();
+        this.serviceCount = codec.getServiceCount();
+        this.vmCpu = codec.getVmCpu();
+        this.vmMemory = codec.getVmMemory();
+        this.containerCpu = codec.getContainerCpu();
+        this.containerMemory = codec.getContainerMemory();
+        this.containerRpm = codec.getContainerRpm();
+        this.serviceLoad = codec.getServiceLoad();
+    }
+
+    public int violations(int[] matrix, int[] previousMatrix) {
+        var violations = 0;
+        violations += calcOverallocatedVmViolations(matrix, previousMatrix);
+        violations += calcServiceUnderprovisioningViolations(matrix);
+        return violations;
+    }
+
+    public int calcOverallocatedVmViolations(int[] matrix, int[] previousMatrix) {
+        var violations = 0;
+        for (int v = 0; v < vmCount; v++) {
+            if (isVmUsed(matrix, v) && isVmOverallocated(matrix, previousMatrix, v)) {
+                violations++;
+            }
+        }
+        return violations;
+    }
+
+    /**
+     * Containers abandoned on the VM still occupy their resources until stopped, hence per service the larger one
+     * of the current and the previous container counts.
+     */
+    public boolean isVmOverallocated(int[] matrix, int[] previousMatrix, int v) {
+        var totalCpu = 0;
+        var totalMemory = 0;
+        for (int s = 0; s < serviceCount; s++) {
+            var i = s * vmCount + v;
+            var gene = matrix[i];
+            var previousGene = previousMatrix == null ? 0 : previousMatrix[i];
+
+            var cpu = gene == 0 ? 0 : containerCpu[s][gene - 1];
+            var memory = gene == 0 ? 0 : containerMemory[s][gene - 1];
+            if (previousGene != 0) {
+                cpu = Math.max(cpu, containerCpu[s][previousGene - 1]);
+                memory = Math.max(memory, containerMemory[s][previousGene - 1]);
+            }
+            totalCpu += cpu;
+            totalMemory += memory;
+        }
+        return totalCpu > vmCpu[v] || totalMemory > vmMemory[v];
+    }
+
+    public int calcServiceUnderprovisioningViolations(int[] matrix) {
+        var violations = 0;
+        for (int s = 0; s < serviceCount; s++) {
+            var capacity = serviceCapacity(matrix, s);
+            var load = serviceLoad[s];
+            if (capacity < load) {
+                violations += load - capacity;
+            }
+        }
+        return violations;
+    }
+
+    public long serviceCapacity(int[] matrix, int s) {
+        var capacity = 0L;
+        var offset = s * vmCount;
+        for (int v = 0; v < vmCount; v++) {
+            var gene = matrix[offset + v];
+            if (gene != 0) {
+                capacity += containerRpm[s][gene - 1];
+            }
+        }
+        return capacity;
+    }
+
+    public boolean isServiceAllocated(int[] matrix, int s) {
+        var offset = s * vmCount;
+        for (int v = 0; v < vmCount; v++) {
+            if (matrix[offset + v] != 0) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return whether each VM (by ordinal) hosts any container, or null for a null matrix
+     */
+    public boolean[] usedVms(int[] matrix) {
+        if (matrix == null) return null;
+        var used = new boolean[vmCount];
+        for (int v = 0; v < vmCount; v++) {
+            used[v] = isVmUsed(matrix, v);
+        }
+        return used;
+    }
+
+    public boolean isVmUsed(int[] matrix, int v) {
+        for (int s = 0; s < serviceCount; s++) {
+            if (matrix[s * vmCount + v] != 0) return true;
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,35 @@
+package at.ac.tuwien.dsg.cooper.genetic;
+
+import java.util.Random;
+
+/**
+ * Moves a random container to another VM having enough residual capacity and no container of the same service.
+ */
+public final class MoveContainerMutator extends AllocationMutator {
+
+    public MoveContainerMutator(AllocationCodec codec, int[] previousMatrix, double probability) {
+        super(codec, previousMatrix, probability);
+    }
+
+    @Override
+    protected int mutate(int[] matrix, ResidualCapacity capacity, Random random) {
+        var cell = randomAllocatedCell(matrix, random);
+        if (cell < 0) return 0;
+
+        var s = cell / vmCount;
+        var v = cell % vmCount;
+        var gene = matrix[cell];
+
+        var start = random.nextInt(vmCount);
+        for (int i = 0; i < vmCount; i++) {
+            var target = (start + i) % vmCount;
+            if (target == v || matrix[s * vmCount + target] != 0 || !capacity.fits(s, target, gene)) continue;
+
+            capacity.set(s, v, 0);
+            capacity.set(s, target, gene);
+            return 2;
+        }
+        return 0;
+    }
+
+}
@@ -14,6 +14,8 @@ import io.jenetics.util.RandomRegistry;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -27,12 +29,16 @@ public final class RepairingConstraint implements Constraint<DistributedIntegerG
     private final Validator validator;
     private final AllocationCodec mapping;
     private final Allocation previousAllocation;
+    private final int[] previousMatrix;
 
     private static final double REPAIRING_PROBABILITY = 0.2;
     private static final double CONSIDER_PREV_ALLOCATION_PROBABILITY = 0.2;
 
-    private SimpleReparation simpleReparation;
-    private FirstFitOptimizer firstFitOptimizer;
+    private final SimpleReparation simpleReparation;
+    private final FirstFitOptimizer firstFitOptimizer;
+
+    @Getter
+    private final LongAdder repairs = new LongAdder();
 
 
     public RepairingConstraint(final Model model, final SystemMeasures measures, final Validator validator, final AllocationCodec mapping, final Allocation previousAllocation) {
@@ -41,6 +47,7 @@ public final class RepairingConstraint implements Constraint<DistributedIntegerG
         this.validator = validator;
         this.mapping = mapping;
         this.previousAllocation = previousAllocation;
+        this.previousMatrix = mapping.toMatrix(previousAllocation.getAllocationMap());
 
         this.simpleReparation = new SimpleReparation(model, measures, validator, previousAllocation);
         this.firstFitOptimizer = new FirstFitOptimizer(model);
@@ -52,16 +59,16 @@ public final class RepairingConstraint implements Constraint<DistributedIntegerG
         var random = Randoms.nextDouble(0, 1, RandomRegistry.random());
         if (random > REPAIRING_PROBABILITY) return true;
 
-        var genotype = individual.genotype();
-        var allocationToTest = new Allocation(model, mapping.serviceRowSquareDecoder(genotype));
+        var matrix = mapping.decodeMatrix(individual.genotype());
 
         // only consider overallocation...
-        var valid = validator.calcOverallocatedVmViolations(allocationToTest, previousAllocation) == 0;
+        var valid = mapping.getMatrixValidator().calcOverallocatedVmViolations(matrix, previousMatrix) == 0;
         return valid;
     }
 
     @Override
     public Phenotype<DistributedIntegerGene, Float> repair(final Phenotype<DistributedIntegerGene, Float> individual, final long generation) {
+        repairs.increment();
         var random = Randoms.nextDouble(0, 1, RandomRegistry.random());
         Map<VmInstance, List<ContainerType>> repairedAllocation;
 
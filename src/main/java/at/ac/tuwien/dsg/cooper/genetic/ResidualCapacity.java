@@ -0,0 +1,97 @@
+package at.ac.tuwien.dsg.cooper.genetic;
+
+/**
+ * Residual CPU and memory per VM of a service x VM allocation matrix (see {@link AllocationCodec}), kept up to date
+ * while cells are changed through {@link #set}. As in {@link MatrixValidator}, containers abandoned w.r.t. the previous
+ * allocation keep occupying their VM, i.e. per service the larger one of the current and the previous container counts.
+ */
+class ResidualCapacity {
+
+    private final int vmCount;
+    private final int serviceCount;
+    private final int[] vmCpu;
+    private final int[] vmMemory;
+    private final int[][] containerCpu;
+    private final int[][] containerMemory;
+
+    private final int[] matrix;
+    private final int[] previousMatrix;
+    private final int[] freeCpu;
+    private final int[] freeMemory;
+
+
+    ResidualCapacity(AllocationCodec codec, int[] matrix, int[] previousMatrix) {
+        this.vmCount = codec.getVmCount();
+        this.serviceCount = codec.getServiceCount();
+        this.vmCpu = codec.getVmCpu();
+        this.vmMemory = codec.getVmMemory();
+        this.containerCpu = codec.getContainerCpu();
+        this.containerMemory = codec.getContainerMemory();
+        this.matrix = matrix;
+        this.previousMatrix = previousMatrix;
+
+        this.freeCpu = new int[vmCount];
+        this.freeMemory = new int[vmCount];
+        for (int v = 0; v < vmCount; v++) {
+            var cpu = vmCpu[v];
+            var memory = vmMemory[v];
+            for (int s = 0; s < serviceCount; s++) {
+                cpu -= occupiedCpu(s, v, matrix[s * vmCount + v]);
+                memory -= occupiedMemory(s, v, matrix[s * vmCount + v]);
+            }
+            freeCpu[v] = cpu;
+            freeMemory[v] = memory;
+        }
+    }
+
+
+    /**
+     * Whether VM v stays within its capacity if service s is allocated with the given (one-based, 0 = none) container.
+     */
+    boolean fits(int s, int v, int gene) {
+        var current = matrix[s * vmCount + v];
+        return freeCpu[v] - occupiedCpu(s, v, gene) + occupiedCpu(s, v, current) >= 0
+                && freeMemory[v] - occupiedMemory(s, v, gene) + occupiedMemory(s, v, current) >= 0;
+    }
+
+    /**
+     * Sets the matrix cell of service s on VM v, regardless of capacity.
+     */
+    void set(int s, int v, int gene) {
+        var i = s * vmCount + v;
+        freeCpu[v] += occupiedCpu(s, v, matrix[i]) - occupiedCpu(s, v, gene);
+        freeMemory[v] += occupiedMemory(s, v, matrix[i]) - occupiedMemory(s, v, gene);
+        matrix[i] = gene;
+    }
+
+    boolean isOverallocated(int v) {
+        return freeCpu[v] < 0 || freeMemory[v] < 0;
+    }
+
+    /**
+     * Share of the VM's CPU or memory in use, whichever is higher.
+     */
+    double utilization(int v) {
+        return Math.max(1 - (double) freeCpu[v] / vmCpu[v], 1 - (double) freeMemory[v] / vmMemory[v]);
+    }
+
+    boolean isUsed(int v) {
+        for (int s = 0; s < serviceCount; s++) {
+            if (matrix[s * vmCount + v] != 0) return true;
+        }
+        return false;
+    }
+
+    private int occupiedCpu(int s, int v, int gene) {
+        var cpu = gene == 0 ? 0 : containerCpu[s][gene - 1];
+        var previousGene = previousMatrix == null ? 0 : previousMatrix[s * vmCount + v];
+        return previousGene == 0 ? cpu : Math.max(cpu, containerCpu[s][previousGene - 1]);
+    }
+
+    private int occupiedMemory(int s, int v, int gene) {
+        var memory = gene == 0 ? 0 : containerMemory[s][gene - 1];
+        var previousGene = previousMatrix == null ? 0 : previousMatrix[s * vmCount + v];
+        return previousGene == 0 ? memory : Math.max(memory, containerMemory[s][previousGene - 1]);
+    }
+
+}
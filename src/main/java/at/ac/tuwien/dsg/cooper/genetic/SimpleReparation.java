@@ -6,8 +6,10 @@ import at.ac.tuwien.dsg.cooper.domain.VmInstance;
 import at.ac.tuwien.dsg.cooper.scheduler.MapUtils;
 import at.ac.tuwien.dsg.cooper.scheduler.Model;
 import at.ac.tuwien.dsg.cooper.scheduler.Validator;
+import at.ac.tuwien.dsg.cooper.scheduler.VmCapacityLedger;
 import at.ac.tuwien.dsg.cooper.scheduler.dto.Allocation;
 import at.ac.tuwien.dsg.cooper.scheduler.dto.SystemMeasures;
+import io.jenetics.util.RandomRegistry;
 import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -28,29 +30,28 @@ public class SimpleReparation {
         var containersToMove = new ArrayList<ContainerType>();
 
         var allocations = new ArrayList<>(allocation.getAllocationMap().entrySet());
-        Collections.shuffle(allocations);
+        Collections.shuffle(allocations, RandomRegistry.random());
+
+        // resources in use per VM, incl. containers abandoned w.r.t. the previous allocation
+        var ledger = new VmCapacityLedger(model, previousAllocation);
 
         // Remove & move excess containers from VMs
         for (var e : allocations) {
             var vm = e.getKey();
-            var containers = e.getValue();
-
-            var previousContainers = previousAllocation.getAllocatedContainersOnVm(vm).stream()
-                    .map(Allocation.AllocationTuple::getContainer)
-                    .collect(Collectors.toList());
+            var containers = new ArrayList<>(e.getValue());
 
-            var isVmOverallocated = validator.isVmOverallocated(vm, containers, previousContainers);
+            containers.forEach(c -> ledger.place(vm, c));
 
-            if (!isVmOverallocated) {
+            if (!ledger.isOverallocated(vm)) {
                 repairedAllocation.put(vm, containers);
             } else {
+                containers.forEach(c -> ledger.remove(vm, c));
+
                 var repairedContainers = new ArrayList<ContainerType>();
-                Collections.shuffle(containers);
+                Collections.shuffle(containers, RandomRegistry.random());
                 for (var container : containers) {
-                    var containersToTest = new ArrayList<>(repairedContainers);
-                    containersToTest.add(container);
-                    var containerFits = !validator.isVmOverallocated(vm, containersToTest, previousContainers);
-                    if (containerFits) {
+                    if (ledger.canFit(vm, container)) {
+                        ledger.place(vm, container);
                         repairedContainers.add(container);
                     } else {
                         containersToMove.add(container);
@@ -111,7 +112,7 @@ public class SimpleReparation {
             var vm = e.getKey();
             var presentContainers = e.getValue();
 
-            var remainingContainers = tryToFitContainersOnVm(vm, presentContainers, containersToAllocate);
+            var remainingContainers = tryToFitContainersOnVm(vm, presentContainers, containersToAllocate, ledger);
             containersToAllocate = remainingContainers;
         }
 
@@ -136,7 +137,7 @@ public class SimpleReparation {
         for (var vm: nonAllocatedVms) {
             var allocatedContainers = new ArrayList<ContainerType>();
 
-            var remainingContainers = tryToFitContainersOnVm(vm, allocatedContainers, containersToAllocate);
+            var remainingContainers = tryToFitContainersOnVm(vm, allocatedContainers, containersToAllocate, ledger);
 
             if (!allocatedContainers.isEmpty()) {
                 repairedAllocation.put(vm, allocatedContainers);
@@ -153,32 +154,16 @@ public class SimpleReparation {
     }
 
 
-    private List<ContainerType> tryToFitContainersOnVm(final VmInstance vm, final List<ContainerType> allocatedContainers, final List<ContainerType> containersToFit) {
-        var presentServices = allocatedContainers.stream()
-                .map(ContainerType::getService)
-                .collect(Collectors.toList());
-        var previousContainers = previousAllocation.getAllocatedContainersOnVm(vm).stream()
-                .map(Allocation.AllocationTuple::getContainer)
-                .collect(Collectors.toList());
-
+    private List<ContainerType> tryToFitContainersOnVm(final VmInstance vm, final List<ContainerType> allocatedContainers,
+                                                       final List<ContainerType> containersToFit, final VmCapacityLedger ledger) {
         var remainingContainersToMove = new ArrayList<ContainerType>();
-        for (int i = 0; i < containersToFit.size(); i++) {
-            var c = containersToFit.get(i);
-
+        for (var c : containersToFit) {
             // Only 1 container instance per service can be allocated on the same VM
-            if (presentServices.contains(c.getService())) {
+            if (ledger.hosts(vm, c.getService()) || !ledger.canFit(vm, c)) {
                 remainingContainersToMove.add(c);
-                continue;
-            }
-
-            var containersToTest = new ArrayList<>(allocatedContainers);
-            containersToTest.add(c);
-            var containerFits = !validator.isVmOverallocated(vm, containersToTest, previousContainers);
-            if (containerFits) {
-                allocatedContainers.add(c);
-                presentServices.add(c.getService());
             } else {
-                remainingContainersToMove.add(c);
+                ledger.place(vm, c);
+                allocatedContainers.add(c);
             }
         }
 
@@ -0,0 +1,86 @@
+package at.ac.tuwien.dsg.cooper.genetic;
+
+import io.jenetics.engine.EvolutionResult;
+import io.jenetics.engine.Limits;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Combination of termination criteria for a single GA run. The evolution stops as soon as one criterion is met (the
+ * result failing the test is the last one evolved); the reason and the number of evolved generations are recorded.
+ * <p>
+ * Criteria may be stateful (e.g. steady fitness), hence a policy must not be reused across runs.
+ */
+public class TerminationPolicy implements Predicate<EvolutionResult<DistributedIntegerGene, Float>> {
+
+    public enum Reason {
+        MAX_GENERATIONS,
+        STEADY_FITNESS,
+        FITNESS_THRESHOLD,
+        DEADLINE
+    }
+
+    @RequiredArgsConstructor
+    private static class Criterion {
+        private final Reason reason;
+        private final Predicate<? super EvolutionResult<DistributedIntegerGene, Float>> proceed;
+    }
+
+    private final List<Criterion> criteria = new ArrayList<>();
+
+    @Getter
+    private Reason reason;
+    @Getter
+    private long generations;
+
+
+    /**
+     * Stops after the given number of generations.
+     */
+    public TerminationPolicy maxGenerations(long generations) {
+        criteria.add(new Criterion(Reason.MAX_GENERATIONS, result -> result.generation() < generations));
+        return this;
+    }
+
+    /**
+     * Stops if the best fitness did not improve for the given number of generations.
+     */
+    public TerminationPolicy steadyFitness(int generations) {
+        criteria.add(new Criterion(Reason.STEADY_FITNESS, Limits.bySteadyFitness(generations)));
+        return this;
+    }
+
+    /**
+     * Stops once the best (minimized) fitness falls below the given threshold.
+     */
+    public TerminationPolicy fitnessThreshold(float threshold) {
+        criteria.add(new Criterion(Reason.FITNESS_THRESHOLD, Limits.byFitnessThreshold(threshold)));
+        return this;
+    }
+
+    /**
+     * Stops once the given (wall-clock) time elapsed, counted from now.
+     */
+    public TerminationPolicy deadline(Duration budget) {
+        var deadline = System.nanoTime() + budget.toNanos();
+        criteria.add(new Criterion(Reason.DEADLINE, result -> System.nanoTime() - deadline < 0));
+        return this;
+    }
+
+    @Override
+    public boolean test(EvolutionResult<DistributedIntegerGene, Float> result) {
+        generations = result.generation();
+        for (var criterion : criteria) {
+            if (!criterion.proceed.test(result)) {
+                reason = criterion.reason;
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,36 @@
+package at.ac.tuwien.dsg.cooper.genetic;
+
+import java.util.Random;
+
+/**
+ * Replaces a random container by another container type of the same service (i.e., scales it up or down), if it
+ * fits on the VM.
+ */
+public final class VerticalScalingMutator extends AllocationMutator {
+
+    public VerticalScalingMutator(AllocationCodec codec, int[] previousMatrix, double probability) {
+        super(codec, previousMatrix, probability);
+    }
+
+    @Override
+    protected int mutate(int[] matrix, ResidualCapacity capacity, Random random) {
+        var cell = randomAllocatedCell(matrix, random);
+        if (cell < 0) return 0;
+
+        var s = cell / vmCount;
+        var v = cell % vmCount;
+        var gene = matrix[cell];
+        var containerTypes = codec.getContainerTable()[s].length;
+
+        var start = random.nextInt(containerTypes);
+        for (int i = 0; i < containerTypes; i++) {
+            var scaledGene = (start + i) % containerTypes + 1;
+            if (scaledGene == gene || !capacity.fits(s, v, scaledGene)) continue;
+
+            capacity.set(s, v, scaledGene);
+            return 1;
+        }
+        return 0;
+    }
+
+}
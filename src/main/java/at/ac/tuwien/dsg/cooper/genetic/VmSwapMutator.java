@@ -0,0 +1,51 @@
+package at.ac.tuwien.dsg.cooper.genetic;
+
+import java.util.Random;
+
+/**
+ * Swaps the containers of two random VMs (i.e., two columns of the allocation matrix), moving a whole group of
+ * containers to a VM of another type or data center. Swaps overallocating either VM are undone.
+ */
+public final class VmSwapMutator extends AllocationMutator {
+
+    private static final int ATTEMPTS = 3;
+
+    public VmSwapMutator(AllocationCodec codec, int[] previousMatrix, double probability) {
+        super(codec, previousMatrix, probability);
+    }
+
+    @Override
+    protected int mutate(int[] matrix, ResidualCapacity capacity, Random random) {
+        if (vmCount < 2) return 0;
+
+        for (int attempt = 0; attempt < ATTEMPTS; attempt++) {
+            var v = random.nextInt(vmCount);
+            var w = random.nextInt(vmCount - 1);
+            if (w >= v) w++;
+            if (!capacity.isUsed(v) && !capacity.isUsed(w)) continue;
+
+            var changed = swap(matrix, capacity, v, w);
+            if (changed == 0) continue;
+            if (!capacity.isOverallocated(v) && !capacity.isOverallocated(w)) return changed;
+
+            swap(matrix, capacity, v, w);
+        }
+        return 0;
+    }
+
+    private int swap(int[] matrix, ResidualCapacity capacity, int v, int w) {
+        var changed = 0;
+        for (int offset = 0; offset < matrix.length; offset += vmCount) {
+            var gene = matrix[offset + v];
+            var otherGene = matrix[offset + w];
+            if (gene == otherGene) continue;
+
+            var s = offset / vmCount;
+            capacity.set(s, v, otherGene);
+            capacity.set(s, w, gene);
+            changed += 2;
+        }
+        return changed;
+    }
+
+}
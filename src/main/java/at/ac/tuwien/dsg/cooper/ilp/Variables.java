@@ -7,9 +7,9 @@ import at.ac.tuwien.dsg.cooper.scheduler.Model;
 import ilog.concert.IloException;
 import ilog.concert.IloIntVar;
 import ilog.cplex.IloCplex;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
@@ -18,13 +18,14 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class Variables {
 
-    private final Map<String, IloIntVar> decisionVariables = new HashMap<>();
+    // indexed by model ordinals
+    private IloIntVar[][] decisionVariables; // [container type][vm]
     // helper variables:
-    private final Map<String, IloIntVar> vmAllocationVariables = new HashMap<>();
-    private final Map<String, IloIntVar> vmGracePeriodVariables = new HashMap<>();
-    private final Map<String, ConcurrentAllocationVariable> concurrentAllocationVariables = new HashMap<>();
-    private final Map<String, IloIntVar> cpuRequirementVariables = new HashMap<>();
-    private final Map<String, IloIntVar> memRequirementVariables = new HashMap<>();
+    private IloIntVar[] vmAllocationVariables;
+    private IloIntVar[] vmGracePeriodVariables;
+    private final List<ConcurrentAllocationVariable> concurrentAllocationVariables = new ArrayList<>();
+    private IloIntVar[][] cpuRequirementVariables; // [service][vm]
+    private IloIntVar[][] memRequirementVariables; // [service][vm]
 
 
     enum ResourceType {
@@ -53,69 +54,65 @@ public class Variables {
 
 
     public IloIntVar getDecisionVariable(ContainerType c, VmInstance k) {
-        var identifier = decisionVariableIdentifier(c, k);
-        return decisionVariables.get(identifier);
+        return decisionVariables[c.getOrdinal()][k.getOrdinal()];
     }
 
     public Collection<ConcurrentAllocationVariable> getConcurrentAllocationVariables() {
-        return concurrentAllocationVariables.values();
+        return concurrentAllocationVariables;
     }
 
     public IloIntVar getResourceVariable(Service s, VmInstance k, ResourceType type) {
         if (type == ResourceType.CPU) {
-            var identifier = cpuResourceVariableIdentifier(s, k);
-            return cpuRequirementVariables.get(identifier);
+            return cpuRequirementVariables[s.getOrdinal()][k.getOrdinal()];
         } else {
-            var identifier = memResourceVariableIdentifier(s, k);
-            return memRequirementVariables.get(identifier);
+            return memRequirementVariables[s.getOrdinal()][k.getOrdinal()];
         }
     }
 
     public IloIntVar getVmAllocationVariable(VmInstance k) {
-        return vmAllocationVariables.get("y_" + k.getId());
+        return vmAllocationVariables[k.getOrdinal()];
     }
 
     public IloIntVar getVmGracePeriodVariable(VmInstance k) {
-        return vmGracePeriodVariables.get("g_" + k.getId());
+        return vmGracePeriodVariables[k.getOrdinal()];
     }
 
 
     private void buildVariables(Model model, IloCplex cplex, boolean enableColocation) throws IloException {
-        for (var vm : model.getVms().values()) {
+        var vms = model.getVmList();
+        var services = model.getServiceList();
+
+        decisionVariables = new IloIntVar[model.getContainerTypes().size()][vms.size()];
+        for (var vm : vms) {
             for (var containerType : model.getContainerTypes()) {
                 var identifier = decisionVariableIdentifier(containerType, vm);
-                var decisionVariable = cplex.boolVar(identifier);
-                decisionVariables.put(identifier, decisionVariable);
+                decisionVariables[containerType.getOrdinal()][vm.getOrdinal()] = cplex.boolVar(identifier);
             }
         }
 
-        for (var vm : model.getVms().values()) {
-            var vmAllocationVariable = cplex.boolVar("y_" + vm.getId());
-            vmAllocationVariables.put("y_" + vm.getId(), vmAllocationVariable);
-            var vmGracePeriodVariable = cplex.boolVar("g_" + vm.getId());
-            vmGracePeriodVariables.put("g_" + vm.getId(), vmGracePeriodVariable);
+        vmAllocationVariables = new IloIntVar[vms.size()];
+        vmGracePeriodVariables = new IloIntVar[vms.size()];
+        for (var vm : vms) {
+            vmAllocationVariables[vm.getOrdinal()] = cplex.boolVar("y_" + vm.getId());
+            vmGracePeriodVariables[vm.getOrdinal()] = cplex.boolVar("g_" + vm.getId());
         }
 
         if (enableColocation) {
-            for (var s1 : model.getServices().values()) {
-                for (var s2 : model.getServices().values()) {
+            for (var s1 : services) {
+                for (var s2 : services) {
                     if (s1 == s2) continue;
                     for (var c1 : s1.getContainerTypes()) {
                         for (var c2 : s2.getContainerTypes()) {
-                            for (var k1 : model.getVms().values()) {
-                                for (var k2 : model.getVms().values()) {
+                            // skip equivalents, i.e. only create (c1,k1,c2,k2) but not (c2,k2,c1,k1)
+                            if (c1.getOrdinal() > c2.getOrdinal()) continue;
+                            for (var k1 : vms) {
+                                for (var k2 : vms) {
                                     if (k1 == k2) continue; // assume distance on same VM is always 0
 
-                                    // skip equivalents
-                                    var symmetricIdentifier = concurrentAllocationVariableIdentifier(c2, k2, c1, k1);
-                                    if (concurrentAllocationVariables.containsKey(symmetricIdentifier)) {
-                                        continue;
-                                    }
-
                                     var identifier = concurrentAllocationVariableIdentifier(c1, k1, c2, k2);
                                     var decisionVariable = cplex.boolVar(identifier);
                                     var wrapper = new ConcurrentAllocationVariable(c1, k1, c2, k2, decisionVariable);
-                                    concurrentAllocationVariables.put(identifier, wrapper);
+                                    concurrentAllocationVariables.add(wrapper);
                                 }
                             }
                         }
@@ -126,7 +123,9 @@ public class Variables {
 
         log.info("coloc variables: {}", concurrentAllocationVariables.size());
 
-        for (var service : model.getServices().values()) {
+        cpuRequirementVariables = new IloIntVar[services.size()][vms.size()];
+        memRequirementVariables = new IloIntVar[services.size()][vms.size()];
+        for (var service : services) {
             var maxCpuRequirementOfServiceContainers = service.getContainerTypes().stream()
                     .mapToInt(ContainerType::getCpuUnits)
                     .max().getAsInt();
@@ -134,14 +133,14 @@ public class Variables {
                     .mapToInt(ContainerType::getMemory)
                     .max().getAsInt();
 
-            for (var vm : model.getVms().values()) {
+            for (var vm : vms) {
                 var cpuIdentifier = cpuResourceVariableIdentifier(service, vm);
-                var cpuRequirementVariable = cplex.intVar(0, maxCpuRequirementOfServiceContainers, cpuIdentifier);
-                cpuRequirementVariables.put(cpuIdentifier, cpuRequirementVariable);
+                cpuRequirementVariables[service.getOrdinal()][vm.getOrdinal()] =
+                        cplex.intVar(0, maxCpuRequirementOfServiceContainers, cpuIdentifier);
 
                 var memIdentifier = memResourceVariableIdentifier(service, vm);
-                var memRequirementVariable = cplex.intVar(0, maxMemRequirementOfServiceContainers, memIdentifier);
-                memRequirementVariables.put(memIdentifier, memRequirementVariable);
+                memRequirementVariables[service.getOrdinal()][vm.getOrdinal()] =
+                        cplex.intVar(0, maxMemRequirementOfServiceContainers, memIdentifier);
             }
         }
     }
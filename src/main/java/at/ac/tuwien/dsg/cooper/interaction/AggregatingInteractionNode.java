@@ -1,99 +1,113 @@
 package at.ac.tuwien.dsg.cooper.interaction;
 
-import at.ac.tuwien.dsg.cooper.domain.Service;
 import at.ac.tuwien.dsg.cooper.scheduler.Model;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 public class AggregatingInteractionNode extends InteractionNode {
 
     private List<? extends InteractionNode> childNodes;
-    private Map<InteractionNode, Map<InteractionNode, Integer>> distanceGraph;
+    private int[][] distances; // latency by source and target child index
     private InteractionRecorder interactionRecorder;
 
+    // overflow by source child index
+    private final ServiceLoadVector[] overflowPool;
+
+    // scratch buffers, reused across calls
+    private final Result childResult;
+    private final Result overflowResult;
+    private final ServiceLoadVector remainingLoad;
+    private final ServiceLoadVector noLoad;
+
     public AggregatingInteractionNode(String label,
                                       Model model,
                                       List<? extends InteractionNode> children,
-                                      Map<InteractionNode, Map<InteractionNode, Integer>> distanceGraph,
+                                      int[][] distances,
                                       InteractionRecorder interactionRecorder) {
         super(label, model);
         this.childNodes = children;
-        this.distanceGraph = distanceGraph;
+        this.distances = distances;
         this.interactionRecorder = interactionRecorder;
-    }
 
-    // overflow by source nodes
-    private Map<InteractionNode, ServiceLoadMap> overflowPool = new HashMap<>();
+        var serviceCount = model.getServiceList().size();
+        this.overflowPool = new ServiceLoadVector[children.size()];
+        for (int i = 0; i < overflowPool.length; i++) {
+            overflowPool[i] = new ServiceLoadVector(serviceCount);
+        }
+        this.childResult = new Result(model);
+        this.overflowResult = new Result(model);
+        this.remainingLoad = new ServiceLoadVector(serviceCount);
+        this.noLoad = new ServiceLoadVector(serviceCount);
+    }
 
-    public Result initialize() {
-        var processedLoad = new ServiceLoadMap();
-        var internalProcessedLoad = new ServiceLoadMap();
+    public void initialize(Result result) {
+        result.clear();
+        var processedLoad = result.getProcessedLoad();
+        var internalProcessedLoad = result.getInternalProcessedLoad();
 
         // process initial load on child nodes
-        for (var childNode : childNodes) {
-            var result = childNode.initialize();
+        for (int i = 0; i < childNodes.size(); i++) {
+            childNodes.get(i).initialize(childResult);
 
-            overflowPool.put(childNode, new ServiceLoadMap(result.getInducedOverflow()));
+            overflowPool[i].copyFrom(childResult.getInducedOverflow());
 
-            processedLoad.add(result.getProcessedLoad());
-            internalProcessedLoad.add(result.getInternalProcessedLoad());
+            processedLoad.add(childResult.getProcessedLoad());
+            internalProcessedLoad.add(childResult.getInternalProcessedLoad());
         }
         this.totalProcessedLoad.add(internalProcessedLoad);
         this.totalProcessedLoad.add(processedLoad);
 
         // process induced overflow and count processed load as internal interaction
-        var result = this.process(Map.of());
-        assert result.getProcessedLoad().isEmpty();
-        var internalProcessedOverflow = result.getInternalProcessedLoad();
-        var overflow = result.getInducedOverflow();
+        this.process(noLoad, overflowResult);
+        assert overflowResult.getProcessedLoad().isZero();
 
-        internalProcessedLoad.add(result.getProcessedLoad());
-        internalProcessedLoad.add(internalProcessedOverflow);
+        internalProcessedLoad.add(overflowResult.getProcessedLoad());
+        internalProcessedLoad.add(overflowResult.getInternalProcessedLoad());
 
-        return new Result(overflow, processedLoad, internalProcessedLoad, result.isHasProcessed());
+        result.getInducedOverflow().copyFrom(overflowResult.getInducedOverflow());
+        result.setHasProcessed(overflowResult.isHasProcessed());
     }
 
-    public Result process(final Map<Service, Double> loadPerService) {
-        var remainingLoad = new ServiceLoadMap(loadPerService);
-        var processedLoad = new ServiceLoadMap();
-        var internalProcessedLoad = new ServiceLoadMap();
+    public void process(final ServiceLoadVector loadPerService, Result result) {
+        result.clear();
+        remainingLoad.copyFrom(loadPerService);
+        var processedLoad = result.getProcessedLoad();
+        var internalProcessedLoad = result.getInternalProcessedLoad();
 
         var hasProcessedAtLeastOnce = false;
         var isProcessing = true;
 
         while (isProcessing) { // if nothing could be processed anymore: no change, stop processing
             isProcessing = false;
-            for (var targetNode : childNodes) {
+            for (int t = 0; t < childNodes.size(); t++) {
+                var targetNode = childNodes.get(t);
 
-                var clonedPool = new HashMap<>(overflowPool);
-                for (var sourceNode : clonedPool.entrySet()) {
-                    var sourcePool = sourceNode.getValue();
-                    var overflowResult = targetNode.process(sourcePool);
-                    var processedOverflow = overflowResult.getProcessedLoad();
+                for (int s = 0; s < overflowPool.length; s++) {
+                    var sourcePool = overflowPool[s];
+                    if (sourcePool.isZero()) continue; // nothing to process
+
+                    targetNode.process(sourcePool, childResult);
+                    var processedOverflow = childResult.getProcessedLoad();
                     internalProcessedLoad.add(processedOverflow);
-                    internalProcessedLoad.add(overflowResult.getInternalProcessedLoad());
+                    internalProcessedLoad.add(childResult.getInternalProcessedLoad());
 
-                    var distanceLatency = distanceGraph.get(sourceNode.getKey()).get(targetNode);
-                    var processedOverflowSum = processedOverflow.values().stream().mapToDouble(v -> v).sum();
-                    interactionRecorder.record(distanceLatency, processedOverflowSum);
+                    interactionRecorder.record(distances[s][t], processedOverflow.sum());
 
                     sourcePool.deduct(processedOverflow);
-                    addToPool(targetNode, overflowResult.getInducedOverflow());
+                    overflowPool[t].add(childResult.getInducedOverflow());
 
-                    if (overflowResult.isHasProcessed()) {
+                    if (childResult.isHasProcessed()) {
                         isProcessing = true;
                     }
                 }
 
-                var loadResult = targetNode.process(remainingLoad);
-                var processed = loadResult.getProcessedLoad();
+                targetNode.process(remainingLoad, childResult);
+                var processed = childResult.getProcessedLoad();
                 remainingLoad.deduct(processed);
                 processedLoad.add(processed);
-                internalProcessedLoad.add(loadResult.getInternalProcessedLoad());
-                addToPool(targetNode, loadResult.getInducedOverflow());
+                internalProcessedLoad.add(childResult.getInternalProcessedLoad());
+                overflowPool[t].add(childResult.getInducedOverflow());
 
-                if (loadResult.isHasProcessed()) {
+                if (childResult.isHasProcessed()) {
                     isProcessing = true;
                 }
             }
@@ -103,20 +117,16 @@ public class AggregatingInteractionNode extends InteractionNode {
             }
         }
 
-        var remainingOverflow = new ServiceLoadMap();
-        overflowPool.values().forEach(remainingOverflow::add);
-        overflowPool.clear();
+        var remainingOverflow = result.getInducedOverflow();
+        for (var pool : overflowPool) {
+            remainingOverflow.add(pool);
+            pool.clear();
+        }
 
         this.totalProcessedLoad.add(processedLoad);
         this.totalProcessedLoad.add(internalProcessedLoad);
         this.totalOverflow.add(remainingOverflow);
-        return new Result(remainingOverflow, processedLoad, internalProcessedLoad, hasProcessedAtLeastOnce);
-    }
-
-    private void addToPool(InteractionNode sourceNode, Map<Service, Double> loadMap) {
-        var sourceNodePool = overflowPool.getOrDefault(sourceNode, new ServiceLoadMap());
-        sourceNodePool.add(loadMap);
-        overflowPool.put(sourceNode, sourceNodePool);
+        result.setHasProcessed(hasProcessedAtLeastOnce);
     }
 
 }
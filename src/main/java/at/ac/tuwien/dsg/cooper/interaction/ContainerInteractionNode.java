@@ -3,60 +3,55 @@ package at.ac.tuwien.dsg.cooper.interaction;
 import at.ac.tuwien.dsg.cooper.domain.ContainerType;
 import at.ac.tuwien.dsg.cooper.domain.Service;
 import at.ac.tuwien.dsg.cooper.scheduler.Model;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 public class ContainerInteractionNode extends InteractionNode {
 
     private Service service;
+    private int serviceOrdinal;
     private double freeCapacity;
     private double initialLoad;
+    private int[] downstreamServices;
+    private float[] downstreamMultipliers;
 
     public ContainerInteractionNode(String label, Model model, ContainerType container, double initialLoad) {
         super(label, model);
         this.initialLoad = initialLoad;
         this.service = container.getService();
+        this.serviceOrdinal = service.getOrdinal();
+        this.downstreamServices = model.getDownstreamServices()[serviceOrdinal];
+        this.downstreamMultipliers = model.getDownstreamMultipliers()[serviceOrdinal];
         this.freeCapacity = container.getRpmCapacity().doubleValue();
     }
 
 
-    public Result initialize() {
-        var result = this.process(Map.of(service, initialLoad));
-        assert result.getProcessedLoad().get(service) == initialLoad;
-        return result;
+    public void initialize(Result result) {
+        process(initialLoad, result);
+        assert result.getProcessedLoad().get(serviceOrdinal) == initialLoad;
     }
 
-    public Result process(Map<Service, Double> loadToProcess) {
-        var requestedLoad = loadToProcess.get(service);
-        var isLoadPresent = requestedLoad != null && requestedLoad > 0;
+    public void process(ServiceLoadVector loadToProcess, Result result) {
+        process(loadToProcess.get(serviceOrdinal), result);
+    }
+
+    private void process(double requestedLoad, Result result) {
+        result.clear();
+        var isLoadPresent = requestedLoad > 0;
 
         if (freeCapacity > 0 && isLoadPresent) {
             var processableLoad = Math.min(freeCapacity, requestedLoad);
-            var processedLoad = new HashMap<Service, Double>();
-            var inducedLoad = new HashMap<Service, Double>();
+            var processedLoad = result.getProcessedLoad();
+            var inducedLoad = result.getInducedOverflow();
 
-            processedLoad.put(service, processableLoad);
+            processedLoad.set(serviceOrdinal, processableLoad);
             freeCapacity -= processableLoad;
 
-            var downstreamServices = model.getServices().values().stream()
-                    .filter(s -> !s.equals(service))
-                    .collect(Collectors.toList());
-
-            for (var toService : downstreamServices) {
-                var multiplier = model.getInteractionMultiplication().get(service.getName())
-                        .get(toService.getName());
-                var inducedCalls = processableLoad * multiplier;
-                if (inducedCalls > 0) {
-                    inducedLoad.put(toService, inducedCalls);
-                }
+            for (int i = 0; i < downstreamServices.length; i++) {
+                inducedLoad.set(downstreamServices[i], processableLoad * downstreamMultipliers[i]);
             }
 
             this.totalProcessedLoad.add(processedLoad);
             this.totalOverflow.add(inducedLoad);
-            return new Result(inducedLoad, processedLoad, Map.of(), true);
-        } else {
-            return new Result(Map.of(), Map.of(), Map.of(), false);
+            result.setHasProcessed(true);
         }
     }
 
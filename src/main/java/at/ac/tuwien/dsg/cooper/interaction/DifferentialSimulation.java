@@ -0,0 +1,96 @@
+package at.ac.tuwien.dsg.cooper.interaction;
+
+import at.ac.tuwien.dsg.cooper.scheduler.Model;
+import at.ac.tuwien.dsg.cooper.scheduler.dto.Allocation;
+import at.ac.tuwien.dsg.cooper.scheduler.dto.SystemMeasures;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Differential harness for the {@link LinearFlowApproximation}: runs it side by side with the reference
+ * {@link InteractionSimulation} on the same input, records the relative deviation of average latency and total calls
+ * and logs a warning if it exceeds the tolerance. Results (and exceptions) of the reference engine are passed through,
+ * so it can be enabled in regular runs to assess the linear flow approximation on real scenarios.
+ */
+@Slf4j
+public class DifferentialSimulation implements InteractionSimulator {
+
+    public static final double DEFAULT_TOLERANCE = 0.05;
+
+    private final InteractionSimulation reference;
+    private final LinearFlowApproximation candidate;
+    private final double tolerance;
+
+    @Getter
+    private double latencyDeviation = Double.NaN;
+    @Getter
+    private double callsDeviation = Double.NaN;
+    @Getter
+    private boolean agreeing;
+
+    public DifferentialSimulation(Model model, Allocation allocation, SystemMeasures measures) {
+        this(model, allocation, measures, DEFAULT_TOLERANCE);
+    }
+
+    public DifferentialSimulation(Model model, Allocation allocation, SystemMeasures measures, double tolerance) {
+        this.reference = new InteractionSimulation(model, allocation, measures);
+        this.candidate = new LinearFlowApproximation(model, allocation, measures);
+        this.tolerance = tolerance;
+    }
+
+    @Override
+    public void simulate() {
+        IllegalStateException referenceFailure = null;
+        try {
+            reference.simulate();
+        } catch (IllegalStateException ex) {
+            referenceFailure = ex;
+        }
+
+        IllegalStateException candidateFailure = null;
+        try {
+            candidate.simulate();
+        } catch (IllegalStateException ex) {
+            candidateFailure = ex;
+        }
+
+        if (referenceFailure != null || candidateFailure != null) {
+            agreeing = referenceFailure != null && candidateFailure != null;
+            if (!agreeing) {
+                log.warn("Interaction engines disagree on feasibility: reference {}, linear flow {}",
+                        referenceFailure == null ? "succeeded" : referenceFailure.getMessage(),
+                        candidateFailure == null ? "succeeded" : candidateFailure.getMessage());
+            }
+            if (referenceFailure != null) throw referenceFailure;
+            return;
+        }
+
+        var referenceRecorder = reference.getInteractionRecorder();
+        var candidateRecorder = candidate.getInteractionRecorder();
+        latencyDeviation = relativeDeviation(referenceRecorder.getAverageLatency(), candidateRecorder.getAverageLatency());
+        callsDeviation = relativeDeviation(referenceRecorder.getTotalCalls(), candidateRecorder.getTotalCalls());
+        agreeing = latencyDeviation <= tolerance && callsDeviation <= tolerance;
+
+        if (agreeing) {
+            log.debug("Interaction engines agree: latency deviation {}, calls deviation {}", latencyDeviation, callsDeviation);
+        } else {
+            log.warn("Interaction engines deviate: average latency {} vs. {}, total calls {} vs. {}",
+                    referenceRecorder.getAverageLatency(), candidateRecorder.getAverageLatency(),
+                    referenceRecorder.getTotalCalls(), candidateRecorder.getTotalCalls());
+        }
+    }
+
+    @Override
+    public InteractionRecorder getInteractionRecorder() {
+        return reference.getInteractionRecorder();
+    }
+
+    private static double relativeDeviation(double expected, double actual) {
+        if (expected == actual) return 0;
+        if (Double.isNaN(expected) || Double.isNaN(actual)) { // average latency without any calls
+            return Double.isNaN(expected) && Double.isNaN(actual) ? 0 : Double.POSITIVE_INFINITY;
+        }
+        return Math.abs(actual - expected) / Math.max(Math.abs(expected), Double.MIN_NORMAL);
+    }
+
+}
@@ -0,0 +1,29 @@
+package at.ac.tuwien.dsg.cooper.interaction;
+
+import at.ac.tuwien.dsg.cooper.scheduler.Model;
+import at.ac.tuwien.dsg.cooper.scheduler.dto.Allocation;
+import at.ac.tuwien.dsg.cooper.scheduler.dto.SystemMeasures;
+
+public enum InteractionEngine {
+
+    /**
+     * Reference engine, iterating overflow between container, VM and data center nodes until a fixpoint is reached.
+     */
+    ITERATIVE,
+
+    /**
+     * Runs the reference engine side by side with the {@link LinearFlowApproximation}, reports deviations of the
+     * approximation and yields the reference results.
+     */
+    DIFFERENTIAL;
+
+    public InteractionSimulator create(Model model, Allocation allocation, SystemMeasures measures) {
+        switch (this) {
+            case DIFFERENTIAL:
+                return new DifferentialSimulation(model, allocation, measures);
+            default:
+                return new InteractionSimulation(model, allocation, measures);
+        }
+    }
+
+}
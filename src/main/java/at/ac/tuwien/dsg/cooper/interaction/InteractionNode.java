@@ -1,13 +1,13 @@
 package at.ac.tuwien.dsg.cooper.interaction;
 
-import at.ac.tuwien.dsg.cooper.domain.Service;
 import at.ac.tuwien.dsg.cooper.scheduler.Model;
-import java.util.Map;
-import lombok.AllArgsConstructor;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 
-@RequiredArgsConstructor
+/**
+ * Results are written into caller-supplied {@link Result} buffers, so that a simulation run does not allocate once
+ * its node tree is built. A node is only ever called by its parent, one call at a time.
+ */
 public abstract class InteractionNode {
 
     @Getter
@@ -18,22 +18,44 @@ public abstract class InteractionNode {
     @Getter
     protected long recordedInteraction = 0L;
 
-    protected final ServiceLoadMap totalProcessedLoad = new ServiceLoadMap();
-    protected final ServiceLoadMap totalOverflow = new ServiceLoadMap();
+    protected final ServiceLoadVector totalProcessedLoad;
+    protected final ServiceLoadVector totalOverflow;
 
 
-    public abstract Result initialize();
+    protected InteractionNode(String label, Model model) {
+        this.label = label;
+        this.model = model;
+        this.totalProcessedLoad = new ServiceLoadVector(model.getServiceList().size());
+        this.totalOverflow = new ServiceLoadVector(model.getServiceList().size());
+    }
+
 
-    public abstract Result process(Map<Service, Double> loadPerService);
+    public abstract void initialize(Result result);
+
+    public abstract void process(ServiceLoadVector loadPerService, Result result);
 
 
-    @AllArgsConstructor
     @Getter
-    public class Result {
-        private Map<Service, Double> inducedOverflow;
-        private Map<Service, Double> processedLoad;
-        private Map<Service, Double> internalProcessedLoad;
+    public static class Result {
+        private final ServiceLoadVector inducedOverflow;
+        private final ServiceLoadVector processedLoad;
+        private final ServiceLoadVector internalProcessedLoad;
+        @Setter
         private boolean hasProcessed;
+
+        public Result(Model model) {
+            var serviceCount = model.getServiceList().size();
+            this.inducedOverflow = new ServiceLoadVector(serviceCount);
+            this.processedLoad = new ServiceLoadVector(serviceCount);
+            this.internalProcessedLoad = new ServiceLoadVector(serviceCount);
+        }
+
+        public void clear() {
+            inducedOverflow.clear();
+            processedLoad.clear();
+            internalProcessedLoad.clear();
+            hasProcessed = false;
+        }
     }
 
 }
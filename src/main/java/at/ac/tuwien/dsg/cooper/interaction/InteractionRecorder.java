@@ -1,16 +1,19 @@
 package at.ac.tuwien.dsg.cooper.interaction;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
 public class InteractionRecorder {
 
-    // latency to number of calls
-    private Map<Integer, Double> recordedInteractionByLatency = new HashMap<>();
+    // number of calls, indexed by latency
+    private double[] recordedInteractionByLatency = new double[64];
 
-    public void record(Integer latency, Double calls) {
-      var previousCalls = recordedInteractionByLatency.getOrDefault(latency, 0d);
-      recordedInteractionByLatency.put(latency, previousCalls + calls);
+    public void record(int latency, double calls) {
+        if (calls == 0) return;
+        if (latency >= recordedInteractionByLatency.length) {
+            var newLength = Math.max(latency + 1, recordedInteractionByLatency.length * 2);
+            recordedInteractionByLatency = Arrays.copyOf(recordedInteractionByLatency, newLength);
+        }
+        recordedInteractionByLatency[latency] += calls;
     }
 
     public Double getAverageLatency() {
@@ -20,13 +23,19 @@ public class InteractionRecorder {
     }
 
     public Double getTotalLatency() {
-        return recordedInteractionByLatency.entrySet().stream()
-                .map(e -> e.getKey() * e.getValue())
-                .mapToDouble(v -> v).sum();
+        var totalLatency = 0d;
+        for (int latency = 0; latency < recordedInteractionByLatency.length; latency++) {
+            totalLatency += latency * recordedInteractionByLatency[latency];
+        }
+        return totalLatency;
     }
 
     public Double getTotalCalls() {
-        return recordedInteractionByLatency.values().stream().mapToDouble(v -> v).sum();
+        var totalCalls = 0d;
+        for (var calls : recordedInteractionByLatency) {
+            totalCalls += calls;
+        }
+        return totalCalls;
     }
 
 }
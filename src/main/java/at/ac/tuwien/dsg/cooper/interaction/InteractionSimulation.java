@@ -6,14 +6,18 @@ import at.ac.tuwien.dsg.cooper.scheduler.Model;
 import at.ac.tuwien.dsg.cooper.scheduler.dto.Allocation;
 import at.ac.tuwien.dsg.cooper.scheduler.dto.SystemMeasures;
 import java.util.*;
-import java.util.stream.Collectors;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Simulates the interaction between containers of an allocation. A simulation instance (including its node tree and
+ * recorder) is confined to one thread; the model, allocation and measures it reads are never modified, so separate
+ * instances may run concurrently.
+ */
 @Slf4j
 @RequiredArgsConstructor
-public class InteractionSimulation {
+public class InteractionSimulation implements InteractionSimulator {
 
     private final Model model;
     private final Allocation allocation;
@@ -23,43 +27,32 @@ public class InteractionSimulation {
     private final InteractionRecorder interactionRecorder = new InteractionRecorder();
 
 
+    @Override
     public void simulate() {
         // Initially, assign load pro-rata to each container.
         var assignedContainerLoad = computeAssignedContainerLoad();
 
-        var dataCenterNodes = new HashMap<AggregatingInteractionNode, DataCenter>();
-        for (var dataCenter : model.getDataCenters().values()) {
-            var dataCenterNode = dataCenterNode(dataCenter, assignedContainerLoad);
-            dataCenterNodes.put(dataCenterNode, dataCenter);
+        var dataCenters = model.getDataCenterList();
+        var dataCenterNodes = new ArrayList<AggregatingInteractionNode>();
+        for (var dataCenter : dataCenters) {
+            dataCenterNodes.add(dataCenterNode(dataCenter, assignedContainerLoad));
         }
 
-        var distanceGraph = new HashMap<InteractionNode, Map<InteractionNode, Integer>>();
-        for (var s : dataCenterNodes.entrySet()) {
-            var sourceNode = s.getKey();
-            var sourceDataCenter = s.getValue();
-            for (var t : dataCenterNodes.entrySet()) {
-                var targetNode = t.getKey();
-                var targetDataCenter = t.getValue();
-
-                var distanceLatency = (int) model.getDistanceBetween(sourceDataCenter, targetDataCenter);
-                var toMap = distanceGraph.getOrDefault(sourceNode, new HashMap<>());
-                toMap.put(targetNode, distanceLatency);
-                distanceGraph.put(sourceNode, toMap);
+        var distances = new int[dataCenters.size()][dataCenters.size()];
+        for (var sourceDataCenter : dataCenters) {
+            for (var targetDataCenter : dataCenters) {
+                var distanceLatency = (int) model.getDataCenterLatency()[sourceDataCenter.getOrdinal()][targetDataCenter.getOrdinal()];
+                distances[sourceDataCenter.getOrdinal()][targetDataCenter.getOrdinal()] = distanceLatency;
             }
         }
 
         // Run simulation
-        var rootNode = new AggregatingInteractionNode("root", model, new ArrayList<>(dataCenterNodes.keySet()), distanceGraph, interactionRecorder);
-        var result = rootNode.initialize();
+        var rootNode = new AggregatingInteractionNode("root", model, dataCenterNodes, distances, interactionRecorder);
+        var result = new InteractionNode.Result(model);
+        rootNode.initialize(result);
 
-        var processedLoad = result.getProcessedLoad().entrySet().stream()
-                .collect(Collectors.toMap(e -> e.getKey().getName(), Map.Entry::getValue));
-        var remainingOverflow = result.getInducedOverflow().entrySet().stream()
-                .collect(Collectors.toMap(e -> e.getKey().getName(), Map.Entry::getValue));
-
-        var processedSum = processedLoad.values().stream().mapToDouble(v -> v).sum();
-        var totalProcessedSum = rootNode.totalProcessedLoad.values().stream().mapToDouble(v -> v).sum();
-        var remainderSum = remainingOverflow.values().stream().mapToDouble(v -> v).sum();
+        var totalProcessedSum = rootNode.totalProcessedLoad.sum();
+        var remainderSum = result.getInducedOverflow().sum();
         var diff = measures.getTotalSystemLoad() - totalProcessedSum;
 
         if (remainderSum > 0.1) {
@@ -75,12 +68,13 @@ public class InteractionSimulation {
      */
     private Map<Allocation.AllocationTuple, Double> computeAssignedContainerLoad() {
         var assignedContainerLoad = new HashMap<Allocation.AllocationTuple, Double>();
+        var serviceCapacity = allocation.getServiceCapacity();
         for (var serviceAndLoad : measures.getExternalServiceLoad().entrySet()) {
             var serviceName = serviceAndLoad.getKey();
             var service = model.getServices().get(serviceName);
 
             var overallServiceLoad = serviceAndLoad.getValue();
-            var overallServiceCapacity = allocation.getServiceCapacity().get(serviceName);
+            var overallServiceCapacity = serviceCapacity.get(serviceName);
 
             var availableContainers = allocation.getAllocatedContainersByService().getOrDefault(service, Collections.emptyList());
 
@@ -105,17 +99,13 @@ public class InteractionSimulation {
             vmNodes.add(vmNode);
         }
 
-        var dataCenterInternalLatency = (int) model.getDistanceBetween(dataCenter, dataCenter);
-        var distanceGraph = new HashMap<InteractionNode, Map<InteractionNode, Integer>>();
-        for (var sourceNode : vmNodes) {
-            for (var targetNode : vmNodes) {
-                var toMap = distanceGraph.getOrDefault(sourceNode, new HashMap<>());
-                toMap.put(targetNode, dataCenterInternalLatency);
-                distanceGraph.put(sourceNode, toMap);
-            }
+        var dataCenterInternalLatency = (int) model.getDataCenterLatency()[dataCenter.getOrdinal()][dataCenter.getOrdinal()];
+        var distances = new int[vmNodes.size()][vmNodes.size()];
+        for (var toDistances : distances) {
+            Arrays.fill(toDistances, dataCenterInternalLatency);
         }
 
-        return new AggregatingInteractionNode(dataCenter.getName(), model, vmNodes, distanceGraph, interactionRecorder);
+        return new AggregatingInteractionNode(dataCenter.getName(), model, vmNodes, distances, interactionRecorder);
     }
 
     private AggregatingInteractionNode vmNode(VmInstance vm,
@@ -131,16 +121,10 @@ public class InteractionSimulation {
 
         }
 
-        var distanceGraph = new HashMap<InteractionNode, Map<InteractionNode, Integer>>();
-        for (var sourceNode : containerNodes) {
-            for (var targetNode : containerNodes) {
-                var toMap = distanceGraph.getOrDefault(sourceNode, new HashMap<>());
-                toMap.put(targetNode, 0);
-                distanceGraph.put(sourceNode, toMap);
-            }
-        }
+        // containers on the same VM interact without latency
+        var distances = new int[containerNodes.size()][containerNodes.size()];
 
-        return new AggregatingInteractionNode(vm.getId(), model, containerNodes, distanceGraph, interactionRecorder);
+        return new AggregatingInteractionNode(vm.getId(), model, containerNodes, distances, interactionRecorder);
     }
 
 }
@@ -0,0 +1,13 @@
+package at.ac.tuwien.dsg.cooper.interaction;
+
+/**
+ * Simulates the interaction between containers of an allocation and records the resulting calls by latency.
+ * Implementations throw an {@link IllegalStateException} if the allocation cannot process the system load.
+ */
+public interface InteractionSimulator {
+
+    void simulate();
+
+    InteractionRecorder getInteractionRecorder();
+
+}
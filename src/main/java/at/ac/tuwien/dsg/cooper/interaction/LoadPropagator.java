@@ -0,0 +1,169 @@
+package at.ac.tuwien.dsg.cooper.interaction;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.Getter;
+import org.apache.commons.math3.linear.LUDecomposition;
+import org.apache.commons.math3.linear.MatrixUtils;
+import org.apache.commons.math3.linear.SingularMatrixException;
+
+/**
+ * Propagates external load through the interaction multiplication in closed form: with M[i][j] the calls to service j
+ * induced per request processed by service i, the total load per service is L = e (I - M)^-1 for the external load e,
+ * the interaction from i to j is L[i] M[i][j]. The inverse is computed once per model, a propagation then takes
+ * O(n^2) without rounding in between. Results are cached per external load vector, as load fixtures repeat their
+ * records over many scheduling cycles.
+ * <p>
+ * All vectors and matrices are indexed by service ordinal. Thread-safe.
+ */
+public class LoadPropagator {
+
+    private static final int CACHE_SIZE = 64;
+    private static final double NEGATIVE_TOLERANCE = 1e-9;
+
+    @Getter
+    private final int serviceCount;
+    private final double[][] multiplication;
+    private final double[][] propagation; // (I - M)^-1
+
+    private final Map<LoadKey, Result> cache = Collections.synchronizedMap(
+            new LinkedHashMap<>(CACHE_SIZE, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<LoadKey, Result> eldest) {
+                    return size() > CACHE_SIZE;
+                }
+            });
+
+
+    /**
+     * @param downstreamServices   non-zero downstream service ordinals by calling service ordinal
+     * @param downstreamMultipliers the corresponding multipliers
+     * @throws IllegalStateException if the interactions amplify load infinitely (cycles with a gain of 1 or more)
+     */
+    public LoadPropagator(int[][] downstreamServices, float[][] downstreamMultipliers) {
+        this.serviceCount = downstreamServices.length;
+        this.multiplication = new double[serviceCount][serviceCount];
+        for (int i = 0; i < serviceCount; i++) {
+            for (int k = 0; k < downstreamServices[i].length; k++) {
+                multiplication[i][downstreamServices[i][k]] = downstreamMultipliers[i][k];
+            }
+        }
+
+        var system = MatrixUtils.createRealIdentityMatrix(serviceCount);
+        for (int i = 0; i < serviceCount; i++) {
+            for (int j = 0; j < serviceCount; j++) {
+                system.addToEntry(i, j, -multiplication[i][j]);
+            }
+        }
+        try {
+            this.propagation = new LUDecomposition(system).getSolver().getInverse().getData();
+        } catch (SingularMatrixException ex) {
+            throw new IllegalStateException("Interaction multiplication does not converge", ex);
+        }
+        // for non-negative M, (I - M)^-1 is non-negative iff the series sum of M^k converges
+        for (var row : propagation) {
+            for (var value : row) {
+                if (value < -NEGATIVE_TOLERANCE) {
+                    throw new IllegalStateException("Interaction multiplication does not converge");
+                }
+            }
+        }
+    }
+
+
+    /**
+     * @return M[i][j]: calls to service j induced per request processed by service i. Must not be modified.
+     */
+    public double[][] getMultiplication() {
+        return multiplication;
+    }
+
+    /**
+     * Total load per service for the given external load.
+     */
+    public double[] totalLoad(double[] externalLoad) {
+        var totalLoad = new double[serviceCount];
+        for (int i = 0; i < serviceCount; i++) {
+            var load = externalLoad[i];
+            if (load == 0) continue;
+            var row = propagation[i];
+            for (int j = 0; j < serviceCount; j++) {
+                totalLoad[j] += load * row[j];
+            }
+        }
+        return totalLoad;
+    }
+
+    /**
+     * Propagates the given external load. The result may be shared with other callers and must not be modified.
+     */
+    public Result propagate(int[] externalLoad) {
+        var key = new LoadKey(externalLoad.clone());
+        var cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        var totalLoad = totalLoad(Arrays.stream(externalLoad).asDoubleStream().toArray());
+        var interaction = new float[serviceCount][serviceCount];
+        for (int i = 0; i < serviceCount; i++) {
+            for (int j = 0; j < serviceCount; j++) {
+                interaction[i][j] = (float) (totalLoad[i] * multiplication[i][j]);
+            }
+        }
+        var result = new Result(key.load, totalLoad, interaction);
+        cache.put(key, result);
+        return result;
+    }
+
+
+    /**
+     * The load per service and the interaction between services resulting from an external load.
+     */
+    @Getter
+    public static class Result {
+        private final int[] externalLoad;
+        private final double[] totalLoad;
+        private final float[][] interaction; // interaction[i][j]: calls from service i to service j
+
+        private Result(int[] externalLoad, double[] totalLoad, float[][] interaction) {
+            this.externalLoad = externalLoad;
+            this.totalLoad = totalLoad;
+            this.interaction = interaction;
+        }
+
+        /**
+         * Induced load of the given service, i.e. its total load minus its external load.
+         */
+        public double getInternalLoad(int service) {
+            return totalLoad[service] - externalLoad[service];
+        }
+
+        public double getTotalSystemLoad() {
+            return Arrays.stream(totalLoad).sum();
+        }
+    }
+
+    private static final class LoadKey {
+        private final int[] load;
+        private final int hashCode;
+
+        private LoadKey(int[] load) {
+            this.load = load;
+            this.hashCode = Arrays.hashCode(load);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof LoadKey && Arrays.equals(load, ((LoadKey) o).load);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+}
@@ -0,0 +1,75 @@
+package at.ac.tuwien.dsg.cooper.interaction;
+
+import at.ac.tuwien.dsg.cooper.domain.Service;
+import at.ac.tuwien.dsg.cooper.scheduler.Model;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Load (requests per minute) per service, indexed by service ordinal. Instances are meant to be reused as scratch
+ * buffers, hence all operations work in place.
+ */
+public final class ServiceLoadVector {
+
+    private final double[] load;
+
+    public ServiceLoadVector(int serviceCount) {
+        this.load = new double[serviceCount];
+    }
+
+    public double get(int service) {
+        return load[service];
+    }
+
+    public void set(int service, double value) {
+        load[service] = value;
+    }
+
+    public void add(ServiceLoadVector other) {
+        for (int s = 0; s < load.length; s++) {
+            load[s] += other.load[s];
+        }
+    }
+
+    public void deduct(ServiceLoadVector other) {
+        for (int s = 0; s < load.length; s++) {
+            load[s] -= other.load[s];
+        }
+    }
+
+    public void copyFrom(ServiceLoadVector other) {
+        System.arraycopy(other.load, 0, load, 0, load.length);
+    }
+
+    public void clear() {
+        for (int s = 0; s < load.length; s++) {
+            load[s] = 0;
+        }
+    }
+
+    public boolean isZero() {
+        for (var value : load) {
+            if (value != 0) return false;
+        }
+        return true;
+    }
+
+    public double sum() {
+        var sum = 0d;
+        for (var value : load) {
+            sum += value;
+        }
+        return sum;
+    }
+
+    public Map<Service, Double> toMap(Model model) {
+        var result = new HashMap<Service, Double>();
+        for (var service : model.getServiceList()) {
+            if (load[service.getOrdinal()] != 0) {
+                result.put(service, load[service.getOrdinal()]);
+            }
+        }
+        return result;
+    }
+
+}
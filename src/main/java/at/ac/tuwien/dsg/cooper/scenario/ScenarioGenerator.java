@@ -0,0 +1,399 @@
+package at.ac.tuwien.dsg.cooper.scenario;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.Yaml;
+
+/**
+ * Generates a synthetic scenario for scaling experiments, reproducible by its seed: the scenario configuration
+ * ({@code scenario-<name>.yml} with data centers, distances and services, and {@code scenario-<name>@<m>x.yml} per load
+ * multiplicator) and the load fixtures ({@code load-fixture/scenario-<name>@<m>x.csv}), in the format of the bundled
+ * scenarios.
+ * <p>
+ * Services form a layered call graph: entry services receive the external load, every service calls {@code fanOut}
+ * services of deeper layers, up to {@code depth} layers below the entry services. Data centers are placed at random on
+ * a plane, their latency grows with the distance. The external load follows a diurnal curve with random bursts.
+ * The number of VM instances per type and data center (the scenario multiplicator) is chosen such that the data centers
+ * can host twice the peak load, bursts included, in terms of both CPU and memory: the demand of a service is its load
+ * times the mean CPU units (or memory) per RPM of its container configurations. Besides, there must be twice as many
+ * VMs as the containers of the largest configuration needed for a service's peak load, as a service runs at most one
+ * container per VM.
+ * <p>
+ * Arguments (all optional): {@code --name=g --seed=42 --services=200 --entryServices=10 --fanOut=3 --depth=5
+ * --dataCenters=20 --duration=120 --step=2 --period=120 --amplitude=0.5 --burstProbability=0.05 --multiplicators=1
+ * --gaLatencyWeight=0.001 --output=scenarios}; durations in minutes. The output directory is to be added to the classpath.
+ */
+@Slf4j
+public class ScenarioGenerator {
+
+    private static final String ON_PREMISE_DATA_CENTER = "DC-Private";
+    private static final int CPU_UNITS_PER_CORE = 1024;
+    private static final int MB_PER_GB = 1024;
+    private static final double CAPACITY_HEADROOM = 2;
+
+    // instance types as in the bundled scenarios: label, cores, memory (GB), cost
+    private static final Object[][] INSTANCE_TYPES = {
+            {"2.small", 2, 2, 0.03},
+            {"2.medium", 2, 4, 0.054},
+            {"4.large", 4, 8, 0.1},
+            {"4.xlarge", 4, 16, 0.186},
+    };
+    // capacity of one instance of each instance type
+    private static final int CPU_UNITS_PER_DATA_CENTER =
+            Arrays.stream(INSTANCE_TYPES).mapToInt(type -> (int) type[1]).sum() * CPU_UNITS_PER_CORE;
+    private static final int MEMORY_PER_DATA_CENTER =
+            Arrays.stream(INSTANCE_TYPES).mapToInt(type -> (int) type[2]).sum() * MB_PER_GB;
+    // container configurations as in the bundled scenarios: rpm capacity, cpu units, memory (MB)
+    private static final int[][] GATEWAY_CONTAINERS = {{1000, 1024, 512}, {2000, 1536, 1024}, {4000, 2048, 2048}, {8000, 2560, 4096}};
+    private static final int[][] BACKEND_CONTAINERS = {{600, 512, 1024}, {900, 1024, 2048}, {1350, 1536, 4096}, {2025, 2048, 8192}};
+
+    private final String name;
+    private final Random random;
+    private final int serviceCount;
+    private final int entryServiceCount;
+    private final int fanOut;
+    private final int depth;
+    private final int dataCenterCount;
+    private final int duration;
+    private final int step;
+    private final int period;
+    private final double amplitude;
+    private final double burstProbability;
+    private final List<Integer> multiplicators;
+    private final double gaLatencyWeight;
+    private final Path output;
+
+
+    public ScenarioGenerator(Map<String, String> options) {
+        this.name = options.getOrDefault("name", "g");
+        this.random = new Random(Long.parseLong(options.getOrDefault("seed", "42")));
+        this.serviceCount = intOption(options, "services", 200);
+        this.entryServiceCount = intOption(options, "entryServices", Math.max(1, serviceCount / 20));
+        this.fanOut = intOption(options, "fanOut", 3);
+        this.depth = intOption(options, "depth", 5);
+        this.dataCenterCount = intOption(options, "dataCenters", 20);
+        this.duration = intOption(options, "duration", 120);
+        this.step = intOption(options, "step", 2);
+        this.period = intOption(options, "period", duration);
+        this.amplitude = Double.parseDouble(options.getOrDefault("amplitude", "0.5"));
+        this.burstProbability = Double.parseDouble(options.getOrDefault("burstProbability", "0.05"));
+        this.multiplicators = Arrays.stream(options.getOrDefault("multiplicators", "1").split(","))
+                .map(Integer::valueOf)
+                .collect(Collectors.toList());
+        this.gaLatencyWeight = Double.parseDouble(options.getOrDefault("gaLatencyWeight", "0.001"));
+        this.output = Path.of(options.getOrDefault("output", "scenarios"));
+
+        if (depth < 1 || entryServiceCount < 1 || serviceCount - entryServiceCount < depth) {
+            throw new IllegalArgumentException("Expected at least one entry service and one service per layer, got "
+                    + serviceCount + " services with " + entryServiceCount + " entry services for depth " + depth);
+        }
+        if (fanOut < 1 || dataCenterCount < 1 || step < 1 || duration < step) {
+            throw new IllegalArgumentException("Expected positive fanOut, dataCenters, step and duration >= step");
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        var options = new HashMap<String, String>();
+        for (var arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --key=value, got " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        new ScenarioGenerator(options).generate();
+    }
+
+    private static int intOption(Map<String, String> options, String key, int defaultValue) {
+        return options.containsKey(key) ? Integer.parseInt(options.get(key)) : defaultValue;
+    }
+
+
+    public void generate() throws IOException {
+        var services = new ArrayList<String>();
+        for (int i = 0; i < serviceCount; i++) {
+            services.add(i < entryServiceCount ? "service-gw-" + i : "service-" + i);
+        }
+        var calls = generateCallGraph();
+        var load = generateLoad();
+        var peakSystemLoad = peakLoad(calls, load, serviceWeights(services, container -> 1d));
+
+        var dataCenters = generateDataCenters();
+        var scenario = new LinkedHashMap<String, Object>();
+        scenario.put("cooper", Map.of("scenarioMultiplicator", scenarioMultiplicator(services, calls, load)));
+        scenario.put("dataCenters", dataCenters);
+        scenario.put("distance", generateDistances(new ArrayList<>(dataCenters.keySet())));
+        scenario.put("services", serviceConfig(services, calls));
+
+        Files.createDirectories(output.resolve("load-fixture"));
+        writeYaml(output.resolve("scenario-" + name + ".yml"), scenario);
+        for (var multiplicator : multiplicators) {
+            var multiplicatorConfig = new LinkedHashMap<String, Object>();
+            multiplicatorConfig.put("spring.config.import", "scenario-" + name + ".yml");
+            multiplicatorConfig.put("cooper", Map.of("optimization", Map.of("gaLatencyWeight", gaLatencyWeight)));
+            writeYaml(output.resolve("scenario-" + name + "@" + multiplicator + "x.yml"), multiplicatorConfig);
+            writeLoadFixture(output.resolve("load-fixture/scenario-" + name + "@" + multiplicator + "x.csv"), services, load, multiplicator);
+        }
+
+        log.info("Generated scenario {} ({} services, {} data centers, peak system load {}) in {}",
+                name, serviceCount, dataCenterCount + 1, Math.round(peakSystemLoad), output.toAbsolutePath());
+    }
+
+    /**
+     * @return calls[i]: downstream service index to multiplier, for service i
+     */
+    private List<Map<Integer, Double>> generateCallGraph() {
+        // layer 0 holds the entry services, the other services are spread evenly over the layers below
+        var layers = new ArrayList<List<Integer>>();
+        layers.add(new ArrayList<>());
+        for (int l = 1; l <= depth; l++) {
+            layers.add(new ArrayList<>());
+        }
+        for (int i = 0; i < serviceCount; i++) {
+            var layer = i < entryServiceCount ? 0 : 1 + (i - entryServiceCount) * depth / (serviceCount - entryServiceCount);
+            layers.get(layer).add(i);
+        }
+
+        var calls = new ArrayList<Map<Integer, Double>>();
+        for (int i = 0; i < serviceCount; i++) {
+            calls.add(new TreeMap<>());
+        }
+        for (int l = 0; l < depth; l++) {
+            var callers = layers.get(l);
+            var nextLayer = layers.get(l + 1);
+            // every service of the next layer is called at least once
+            for (int k = 0; k < nextLayer.size(); k++) {
+                calls.get(callers.get(k % callers.size())).put(nextLayer.get(k), multiplier());
+            }
+            // further calls go to any deeper layer, mostly the next one
+            var deeper = new ArrayList<Integer>();
+            layers.subList(l + 1, layers.size()).forEach(deeper::addAll);
+            for (var caller : callers) {
+                var targets = calls.get(caller);
+                var wanted = Math.min(fanOut, deeper.size());
+                while (targets.size() < wanted) {
+                    var target = random.nextDouble() < 0.7
+                            ? nextLayer.get(random.nextInt(nextLayer.size()))
+                            : deeper.get(random.nextInt(deeper.size()));
+                    targets.putIfAbsent(target, multiplier());
+                }
+            }
+        }
+        return calls;
+    }
+
+    private double multiplier() {
+        // keeps the load roughly constant from layer to layer
+        return Math.max(0.01, round(0.2 + random.nextDouble() * 0.8 / fanOut, 2));
+    }
+
+    /**
+     * @return load[t][i]: external load of entry service i at time step t
+     */
+    private int[][] generateLoad() {
+        var steps = duration / step + 1;
+        var load = new int[steps][entryServiceCount];
+        for (int i = 0; i < entryServiceCount; i++) {
+            var base = 200 + random.nextInt(1800);
+            var phase = random.nextDouble() * 2 * Math.PI;
+            var burstSteps = 0;
+            var burstFactor = 1d;
+            for (int t = 0; t < steps; t++) {
+                if (burstSteps == 0 && random.nextDouble() < burstProbability) {
+                    burstSteps = 1 + random.nextInt(3);
+                    burstFactor = 1.5 + random.nextDouble() * 1.5;
+                }
+                var diurnal = 1 + amplitude * Math.sin(2 * Math.PI * t * step / period + phase);
+                var noise = 1 + (random.nextDouble() - 0.5) * 0.1;
+                var factor = burstSteps > 0 ? burstFactor : 1;
+                if (burstSteps > 0) burstSteps--;
+                load[t][i] = (int) Math.round(base * diurnal * noise * factor);
+            }
+        }
+        return load;
+    }
+
+    /**
+     * @return instances per type and data center for multiplicator 1, see the class description
+     */
+    private int scenarioMultiplicator(List<String> services, List<Map<Integer, Double>> calls, int[][] load) {
+        var peakCpuDemand = peakLoad(calls, load,
+                serviceWeights(services, container -> (double) container[1] / container[0]));
+        var peakMemoryDemand = peakLoad(calls, load,
+                serviceWeights(services, container -> (double) container[2] / container[0]));
+        var maxContainers = 0;
+        for (int i = 0; i < serviceCount; i++) {
+            var weights = new double[serviceCount];
+            weights[i] = 1;
+            var largestRpm = Arrays.stream(containerConfigurations(services.get(i)))
+                    .mapToInt(container -> container[0])
+                    .max().orElseThrow();
+            maxContainers = Math.max(maxContainers, (int) Math.ceil(peakLoad(calls, load, weights) / largestRpm));
+        }
+
+        var forCpu = CAPACITY_HEADROOM * peakCpuDemand / ((double) CPU_UNITS_PER_DATA_CENTER * dataCenterCount);
+        var forMemory = CAPACITY_HEADROOM * peakMemoryDemand / ((double) MEMORY_PER_DATA_CENTER * dataCenterCount);
+        var forContainers = CAPACITY_HEADROOM * maxContainers / ((double) INSTANCE_TYPES.length * dataCenterCount);
+        log.info("Instances per type and data center needed for CPU: {}, memory: {}, containers: {}",
+                round(forCpu, 2), round(forMemory, 2), round(forContainers, 2));
+        return Math.max(1, (int) Math.ceil(Math.max(forCpu, Math.max(forMemory, forContainers))));
+    }
+
+    /**
+     * @return weights[i]: the mean of the given container attribute over the container configurations of service i
+     */
+    private static double[] serviceWeights(List<String> services, ToDoubleFunction<int[]> attribute) {
+        return services.stream()
+                .map(ScenarioGenerator::containerConfigurations)
+                .mapToDouble(containers -> Arrays.stream(containers).mapToDouble(attribute).average().orElseThrow())
+                .toArray();
+    }
+
+    /**
+     * @return the peak over all time steps of the total load of all services, each weighted by the given weight
+     */
+    private double peakLoad(List<Map<Integer, Double>> calls, int[][] load, double[] weights) {
+        var peak = 0d;
+        for (var externalLoad : load) {
+            // services only call services with a higher index, hence one pass in index order propagates all load
+            var totalLoad = new double[serviceCount];
+            for (int i = 0; i < entryServiceCount; i++) {
+                totalLoad[i] = externalLoad[i];
+            }
+            for (int i = 0; i < serviceCount; i++) {
+                for (var call : calls.get(i).entrySet()) {
+                    totalLoad[call.getKey()] += totalLoad[i] * call.getValue();
+                }
+            }
+            var weightedLoad = 0d;
+            for (int i = 0; i < serviceCount; i++) {
+                weightedLoad += totalLoad[i] * weights[i];
+            }
+            peak = Math.max(peak, weightedLoad);
+        }
+        return peak;
+    }
+
+    private Map<String, Object> generateDataCenters() {
+        var dataCenters = new LinkedHashMap<String, Object>();
+        var onPremise = new LinkedHashMap<String, Object>();
+        onPremise.put("onPremise", true);
+        onPremise.put("instanceTypes", List.of(instanceType(INSTANCE_TYPES[2], null, 2)));
+        dataCenters.put(ON_PREMISE_DATA_CENTER, onPremise);
+        for (int d = 1; d <= dataCenterCount; d++) {
+            var instanceTypes = new ArrayList<Object>();
+            for (var type : INSTANCE_TYPES) {
+                // prices vary by up to 10% between data centers
+                var cost = round((Double) type[3] * (0.9 + random.nextDouble() * 0.2), 3);
+                instanceTypes.add(instanceType(type, cost, null));
+            }
+            dataCenters.put("DC-" + d, Map.of("instanceTypes", instanceTypes));
+        }
+        return dataCenters;
+    }
+
+    private static Map<String, Object> instanceType(Object[] type, Double cost, Integer count) {
+        var instanceType = new LinkedHashMap<String, Object>();
+        instanceType.put("label", type[0]);
+        instanceType.put("cpuCores", type[1]);
+        instanceType.put("memory", type[2] + "GB");
+        if (cost != null) instanceType.put("cost", cost);
+        if (count != null) instanceType.put("count", count);
+        return instanceType;
+    }
+
+    private List<Object> generateDistances(List<String> dataCenters) {
+        // positions on a plane of 100 x 100, the on-premise data center in the center
+        var x = new double[dataCenters.size()];
+        var y = new double[dataCenters.size()];
+        for (int d = 0; d < dataCenters.size(); d++) {
+            var onPremise = dataCenters.get(d).equals(ON_PREMISE_DATA_CENTER);
+            x[d] = onPremise ? 50 : random.nextDouble() * 100;
+            y[d] = onPremise ? 50 : random.nextDouble() * 100;
+        }
+
+        var distances = new ArrayList<Object>();
+        for (int a = 0; a < dataCenters.size(); a++) {
+            for (int b = a; b < dataCenters.size(); b++) {
+                int latency;
+                if (a == b) {
+                    latency = dataCenters.get(a).equals(ON_PREMISE_DATA_CENTER) ? 10 : 15;
+                } else {
+                    latency = 20 + (int) Math.round(Math.hypot(x[a] - x[b], y[a] - y[b]) * 1.5);
+                }
+                var distance = new LinkedHashMap<String, Object>();
+                distance.put("a", dataCenters.get(a));
+                distance.put("b", dataCenters.get(b));
+                distance.put("latency", latency);
+                distances.add(distance);
+            }
+        }
+        return distances;
+    }
+
+    private static Map<String, Object> serviceConfig(List<String> services, List<Map<Integer, Double>> calls) {
+        var config = new LinkedHashMap<String, Object>();
+        for (int i = 0; i < services.size(); i++) {
+            var service = new LinkedHashMap<String, Object>();
+            if (!calls.get(i).isEmpty()) {
+                var downstreamServices = new LinkedHashMap<String, Object>();
+                calls.get(i).forEach((target, multiplier) -> downstreamServices.put(services.get(target), multiplier));
+                service.put("downstreamServices", downstreamServices);
+            }
+
+            var containers = new ArrayList<Object>();
+            for (var container : containerConfigurations(services.get(i))) {
+                var containerConfiguration = new LinkedHashMap<String, Object>();
+                containerConfiguration.put("label", container[0] + "@" + container[2]);
+                containerConfiguration.put("rpmCapacity", container[0]);
+                containerConfiguration.put("cpuUnits", container[1]);
+                containerConfiguration.put("memory", container[2] + "MB");
+                containers.add(containerConfiguration);
+            }
+            service.put("containerConfigurations", containers);
+
+            config.put(services.get(i), service);
+        }
+        return config;
+    }
+
+    private static int[][] containerConfigurations(String service) {
+        return service.startsWith("service-gw") ? GATEWAY_CONTAINERS : BACKEND_CONTAINERS;
+    }
+
+    private static void writeYaml(Path file, Map<String, Object> content) throws IOException {
+        var options = new DumperOptions();
+        options.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
+        options.setIndicatorIndent(2);
+        options.setIndent(4);
+        try (var writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            new Yaml(options).dump(content, writer);
+        }
+    }
+
+    private void writeLoadFixture(Path file, List<String> services, int[][] load, int multiplicator) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("t (min);" + String.join(";", services) + "\n");
+            for (int t = 0; t < load.length; t++) {
+                var row = new StringBuilder().append(t * step);
+                for (int i = 0; i < services.size(); i++) {
+                    row.append(';').append(i < entryServiceCount ? load[t][i] * multiplicator : 0);
+                }
+                writer.write(row.append('\n').toString());
+            }
+        }
+    }
+
+    private static double round(double value, int decimals) {
+        var factor = Math.pow(10, decimals);
+        return Math.round(value * factor) / factor;
+    }
+
+}
@@ -29,7 +29,8 @@ public class FirstFitOptimizer implements Optimizer {
     }
 
     public List<Allocation.AllocationTuple> doIt(Allocation previousAllocation, SystemMeasures systemMeasures) {
-        var allocationMap = new Allocation(previousAllocation).getAllocationMap();
+        var allocationMap = new HashMap<VmInstance, List<ContainerType>>();
+        previousAllocation.getUsedVms().forEach(vm -> allocationMap.put(vm, new ArrayList<>(previousAllocation.getAllocationMap().get(vm))));
 
         var missingServiceCapacity = validator.missingCapacityPerService(new Allocation(model, allocationMap), systemMeasures.getTotalServiceLoad())
                 .entrySet().stream()
@@ -85,6 +86,10 @@ public class FirstFitOptimizer implements Optimizer {
 
         var remainingContainersToPlace = new ArrayList<ContainerType>();
 
+        // resources in use per VM, incl. containers abandoned w.r.t. the previous allocation
+        var ledger = new VmCapacityLedger(model, previousAllocation);
+        allocationMap.forEach((vm, containers) -> containers.forEach(c -> ledger.place(vm, c)));
+
         // add additional containers to existing VMs where possible - First Fit
 
         // place largest first
@@ -94,21 +99,14 @@ public class FirstFitOptimizer implements Optimizer {
         for (var container : containersToPlace) {
             for (var entry : allocationMap.entrySet()) {
                 var vm = entry.getKey();
-                var allocatedContainers = entry.getValue();
-                var previousContainers = previousAllocation.getAllocatedContainersOnVm(vm).stream()
-                        .map(Allocation.AllocationTuple::getContainer)
-                        .collect(Collectors.toList());
 
-                if (allocatedContainers.stream().anyMatch(c -> c.getService() == container.getService())) {
+                if (ledger.hosts(vm, container.getService())) {
                     continue;
                 }
 
-                var containersToTest = new ArrayList<>(allocatedContainers);
-                containersToTest.add(container);
-                var containerFits = !validator.isVmOverallocated(vm, containersToTest, previousContainers);
-
-                if (containerFits) {
-                    allocatedContainers.add(container);
+                if (ledger.canFit(vm, container)) {
+                    ledger.place(vm, container);
+                    entry.getValue().add(container);
                     continue outer;
                 }
             }
@@ -128,25 +126,19 @@ public class FirstFitOptimizer implements Optimizer {
         // allocate additional containers on cheapest VMs first
         for (var vm : unleasedVmsCheapestFirst) {
             var remaining = new ArrayList<ContainerType>();
-            var containers = new ArrayList<ContainerType>();
             for (var container : remainingContainersToPlace) {
                 //                if (!placedServices.isEmpty()) { // this would be one-for-each
                 //                    remainingAdditionalContainers.add(container);
                 //                    continue;
                 //                }
 
-                var containsSameService = containers.stream().map(ContainerType::getService)
-                        .anyMatch(s -> s == container.getService());
-                if (containsSameService) {
+                if (ledger.hosts(vm, container.getService())) {
                     remaining.add(container);
                     continue;
                 }
 
-                var containersToTry = new ArrayList<>(containers);
-                containersToTry.add(container);
-                var containerFits = !validator.isVmOverallocated(vm, containersToTry, null);
-                if (containerFits) {
-                    containers.add(container);
+                if (ledger.canFit(vm, container)) {
+                    ledger.place(vm, container);
                     MapUtils.putToMapList(allocationMap, vm, container);
                     //                    allocationMap.put(vm, Collections.singletonList(container));
                 } else {
@@ -1,6 +1,7 @@
 package at.ac.tuwien.dsg.cooper.scheduler;
 
 import at.ac.tuwien.dsg.cooper.domain.*;
+import at.ac.tuwien.dsg.cooper.interaction.LoadPropagator;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
@@ -20,6 +21,27 @@ public class Model {
     private final Map<String, Map<String, Float>> interactionMultiplication;
     private WeightedPseudograph<String, DefaultWeightedEdge> dataCenterDistanceGraph;
 
+    // entities in ordinal order, i.e. vmList.get(vm.getOrdinal()) == vm
+    private final List<DataCenter> dataCenterList;
+    private final List<VmInstance> vmList;
+    private final List<Service> serviceList;
+
+    // primitive attributes indexed by ordinal
+    private final int[] vmCpu;
+    private final int[] vmMemory;
+    private final float[] vmCost;
+    private final int[] vmDataCenter;
+    private final int[] containerCpu;
+    private final int[] containerMemory;
+    private final long[] containerRpm;
+    private final int[] containerService;
+    private final int[][] serviceContainers; // container ordinals of each service, in the service's declaration order
+    private final double[][] dataCenterLatency; // defined for every pair of data centers
+    // sparse interaction multiplication by calling service: non-zero downstream services and their multipliers
+    private final int[][] downstreamServices;
+    private final float[][] downstreamMultipliers;
+    private final LoadPropagator loadPropagator;
+
     public Model(List<DataCenter> dataCenters,
                  List<Service> services,
                  Map<String, Map<String, Float>> interactionMultiplication,
@@ -45,6 +67,76 @@ public class Model {
         this.interactionMultiplication = interactionMultiplication;
 
         this.dataCenterDistanceGraph = dataCenterDistanceGraph;
+
+        this.dataCenterList = List.copyOf(dataCenters);
+        this.vmList = dataCenters.stream()
+                .flatMap(dc -> dc.getVmInstances().stream())
+                .collect(Collectors.toUnmodifiableList());
+        this.serviceList = List.copyOf(services);
+
+        for (int i = 0; i < dataCenterList.size(); i++) {
+            dataCenterList.get(i).setOrdinal(i);
+        }
+        for (int i = 0; i < serviceList.size(); i++) {
+            serviceList.get(i).setOrdinal(i);
+        }
+
+        this.vmCpu = new int[vmList.size()];
+        this.vmMemory = new int[vmList.size()];
+        this.vmCost = new float[vmList.size()];
+        this.vmDataCenter = new int[vmList.size()];
+        for (int i = 0; i < vmList.size(); i++) {
+            var vm = vmList.get(i);
+            vm.setOrdinal(i);
+            vmCpu[i] = vm.getType().getCpuUnits();
+            vmMemory[i] = vm.getType().getMemory();
+            vmCost[i] = vm.getType().getCost();
+            vmDataCenter[i] = vm.getDataCenter().getOrdinal();
+        }
+
+        this.containerCpu = new int[containerTypes.size()];
+        this.containerMemory = new int[containerTypes.size()];
+        this.containerRpm = new long[containerTypes.size()];
+        this.containerService = new int[containerTypes.size()];
+        for (int i = 0; i < containerTypes.size(); i++) {
+            var containerType = containerTypes.get(i);
+            containerType.setOrdinal(i);
+            containerCpu[i] = containerType.getCpuUnits();
+            containerMemory[i] = containerType.getMemory();
+            containerRpm[i] = containerType.getRpmCapacity();
+            containerService[i] = containerType.getService().getOrdinal();
+        }
+
+        this.serviceContainers = serviceList.stream()
+                .map(s -> s.getContainerTypes().stream().mapToInt(ContainerType::getOrdinal).toArray())
+                .toArray(int[][]::new);
+
+        this.downstreamServices = new int[serviceList.size()][];
+        this.downstreamMultipliers = new float[serviceList.size()][];
+        for (var from : serviceList) {
+            var multipliers = interactionMultiplication.getOrDefault(from.getName(), Map.of());
+            var targets = serviceList.stream()
+                    .filter(to -> to != from && multipliers.getOrDefault(to.getName(), 0f) > 0)
+                    .collect(Collectors.toList());
+            downstreamServices[from.getOrdinal()] = targets.stream().mapToInt(Service::getOrdinal).toArray();
+            downstreamMultipliers[from.getOrdinal()] = new float[targets.size()];
+            for (int i = 0; i < targets.size(); i++) {
+                downstreamMultipliers[from.getOrdinal()][i] = multipliers.get(targets.get(i).getName());
+            }
+        }
+
+        this.loadPropagator = new LoadPropagator(downstreamServices, downstreamMultipliers);
+
+        this.dataCenterLatency = new double[dataCenterList.size()][dataCenterList.size()];
+        for (var dcA : dataCenterList) {
+            for (var dcB : dataCenterList) {
+                var edge = dataCenterDistanceGraph.getEdge(dcA.getName(), dcB.getName());
+                if (edge == null) {
+                    throw new IllegalArgumentException("No distance defined between " + dcA.getName() + " and " + dcB.getName());
+                }
+                dataCenterLatency[dcA.getOrdinal()][dcB.getOrdinal()] = dataCenterDistanceGraph.getEdgeWeight(edge);
+            }
+        }
     }
 
     public double getDistanceBetween(VmInstance vmA, VmInstance vmB) {
@@ -53,8 +145,7 @@ public class Model {
     }
 
     public double getDistanceBetween(DataCenter dcA, DataCenter dcB) {
-        var edge = dataCenterDistanceGraph.getEdge(dcA.getName(), dcB.getName());
-        return dataCenterDistanceGraph.getEdgeWeight(edge);
+        return dataCenterLatency[dcA.getOrdinal()][dcB.getOrdinal()];
     }
 
 }
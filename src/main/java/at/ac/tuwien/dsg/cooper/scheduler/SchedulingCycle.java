@@ -9,7 +9,6 @@ import at.ac.tuwien.dsg.cooper.csp.Listener;
 import at.ac.tuwien.dsg.cooper.evaluation.EvaluationRecord;
 import at.ac.tuwien.dsg.cooper.evaluation.EvaluationService;
 import at.ac.tuwien.dsg.cooper.scheduler.dto.Allocation;
-import at.ac.tuwien.dsg.cooper.scheduler.dto.ExecutionPlan;
 import at.ac.tuwien.dsg.cooper.scheduler.dto.OptResult;
 import at.ac.tuwien.dsg.cooper.scheduler.dto.SystemMeasures;
 import at.ac.tuwien.dsg.cooper.scheduler.mapek.Analyzer;
@@ -21,21 +20,23 @@ import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.text.MessageFormat;
+import java.time.Duration;
+import java.util.List;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 @Slf4j
 @Component
 public class SchedulingCycle {
 
-    private final Cloud cloud = new SimulatedCloud();
+    private final Cloud cloud;
     private final Validator validator;
 
     // MAPE-K (Monitor - Analyze - Plan - Execute)
-    @Autowired
-    private MonitoringController monitor;
+    private final MonitoringController monitor;
     private final Analyzer analyzer;
     private final Planner planner;
     private final Executor executor;
@@ -44,15 +45,22 @@ public class SchedulingCycle {
     private final Model model;
     private final State currentState;
 
-    @Autowired
-    private EvaluationService evaluationService;
+    private final EvaluationService evaluationService;
 
     private long currentClock = 0L; // seconds
     private Allocation drainedTargetAllocation;
+    private boolean idle = false; // last cycle changed nothing and nothing is in progress
 
     @Autowired
-    public SchedulingCycle(Model model, OptimizationConfig config) {
+    public SchedulingCycle(Model model,
+                           OptimizationConfig config,
+                           MonitoringController monitor,
+                           EvaluationService evaluationService,
+                           @Value("${cooper.discreteEvent}") boolean discreteEvent) {
+        this.cloud = new SimulatedCloud(discreteEvent);
         this.model = model;
+        this.monitor = monitor;
+        this.evaluationService = evaluationService;
         this.currentState = new State(model);
         this.currentState.setCurrentTargetAllocation(new Allocation(model));
 
@@ -60,12 +68,13 @@ public class SchedulingCycle {
 
         this.analyzer = new Analyzer(model, config);
         this.planner = new Planner(model, validator, config);
-        this.executor = new Executor(model);
+        this.executor = new Executor(model, config);
     }
 
 
     public void run() {
         var listener = new SchedulingListener();
+        planner.setCycleBudget(Duration.ofSeconds(listener.getClockInterval()));
         cloud.registerListener(listener);
         cloud.run();
     }
@@ -74,6 +83,7 @@ public class SchedulingCycle {
     class SchedulingListener implements Listener {
         @Override
         public void cycleElapsed(long clock, CloudController cloudController) {
+            evaluateSkippedCycles(clock);
             currentClock = clock;
 
             logCycleTimestamp();
@@ -99,13 +109,14 @@ public class SchedulingCycle {
                 } catch (IOException e2) {
                     e2.printStackTrace();
                 }
+                return; // the scenario ended, nothing left to plan
             }
 
             analyze();
 
             printServiceLoad();
 
-            var executionPlan = planner.plan(currentState);
+            var executionPlan = planner.plan(currentState, currentClock);
 
             if (executionPlan.isReallocation()) {
                 executor.execute(cloudController, executionPlan.getTargetAllocation(), currentState);
@@ -120,13 +131,35 @@ public class SchedulingCycle {
             }
 
             printAllocationStatus();
-            evaluate(executionPlan);
+            evaluate(currentClock, executionPlan.getOptResult());
+
+            idle = !executionPlan.isReallocation() && drainedTargetAllocation == null && planner.isIdle();
         }
 
         @Override
         public int getClockInterval() {
             return 30;
         }
+
+        /**
+         * After an idle cycle, nothing changes until the load does: analysis and planning would yield the same.
+         */
+        @Override
+        public long getNextEventClock(long clock) {
+            if (!idle) {
+                return clock + getClockInterval();
+            }
+            return Math.max(clock + getClockInterval(), monitor.getNextLoadChange((int) clock));
+        }
+
+        /**
+         * Cycles skipped by a discrete-event cloud were idle, they are evaluated like the last (idle) cycle.
+         */
+        private void evaluateSkippedCycles(long clock) {
+            for (var skippedClock = currentClock + getClockInterval(); skippedClock < clock; skippedClock += getClockInterval()) {
+                evaluate(skippedClock, null);
+            }
+        }
     }
 
     private void monitor() throws EndOfScenarioException {
@@ -139,28 +172,30 @@ public class SchedulingCycle {
         currentState.setCurrentAnalysisResult(analysisResult);
     }
 
-    private void evaluate(ExecutionPlan executionPlan) {
+    private void evaluate(long clock, OptResult currentOptResult) {
         var record = new EvaluationRecord(
-                (int) currentClock,
+                (int) clock,
                 currentState.getImageDownloads(),
                 currentState.getCurrentSystemMeasures(),
-                currentState.getCurrentAnalysisResult(),
-                executionPlan.getOptResult(),
+                currentOptResult,
                 currentState.getLastOptResult(),
                 currentState.getCurrentTargetAllocation()
         );
+        record.setDiscardedOptimizations(planner.getDiscardedOptimizations());
+        record.setOptimizationPending(planner.isOptimizationPending());
         evaluationService.sample(record);
     }
 
     private void tearDown() {
-        var totalGeneticCost = planner.getOptimizations().stream()
+        var optimizations = List.copyOf(planner.getOptimizations()); // an asynchronous optimization may be in progress
+        var totalGeneticCost = optimizations.stream()
                 .map(o -> o.getAllocation().getTotalCost())
                 .reduce(0f, Float::sum);
 //        var totalGreedyCost = planner.getGreedyOptimizations().stream()
 //                .map(o -> o.getAllocation().getTotalCost())
 //                .reduce(0f, Float::sum);
 
-        var totalGeneticFitness = planner.getOptimizations().stream()
+        var totalGeneticFitness = optimizations.stream()
                 .map(OptResult::getFitness)
                 .reduce(0f, Float::sum);
 //        var totalGreedyFitness = planner.getGreedyOptimizations().stream()
@@ -176,6 +211,9 @@ public class SchedulingCycle {
         log.info(" *** Total Fitness: {}", totalGeneticFitness);
 //        log.info(" *** Total Greedy Fitness: {}", totalGreedyFitness);
 //        log.info(" *** Avg. Runtime: {}s", averageRuntime / 1000d);
+
+        planner.shutdown();
+        executor.shutdown();
     }
 
     private void logCycleTimestamp() {
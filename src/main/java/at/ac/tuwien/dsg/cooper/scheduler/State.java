@@ -46,7 +46,7 @@ public class State {
 
 
     public Pair<Integer, Integer> getFreeCapacity(VmInstance vm) {
-        if (!currentTargetAllocation.getRunningVms().contains(vm)) {
+        if (!currentTargetAllocation.isRunning(vm)) {
             return null;
         }
 
@@ -66,6 +66,15 @@ public class State {
     }
 
 
+    /**
+     * Deep copy of the image cache state, e.g. for planning concurrently to the scheduling cycle.
+     */
+    public Map<VmInstance, Set<Service>> copyImageCacheState() {
+        var copy = new HashMap<VmInstance, Set<Service>>();
+        imageCacheState.forEach((vm, services) -> copy.put(vm, new HashSet<>(services)));
+        return copy;
+    }
+
     public void resetCacheState(VmInstance vm) {
         imageCacheState.get(vm).clear();
     }
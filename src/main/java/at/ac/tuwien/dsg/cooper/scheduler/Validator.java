@@ -4,16 +4,18 @@ import at.ac.tuwien.dsg.cooper.domain.ContainerType;
 import at.ac.tuwien.dsg.cooper.domain.Service;
 import at.ac.tuwien.dsg.cooper.domain.VmInstance;
 import at.ac.tuwien.dsg.cooper.scheduler.dto.Allocation;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 import lombok.AllArgsConstructor;
 
+/**
+ * Stateless apart from the (read-only) model, hence safe to share between concurrent fitness evaluations.
+ */
 @AllArgsConstructor
 public class Validator {
 
-    private Model model;
+    private final Model model;
 
     public boolean isAllocationValid(Allocation resourceAllocation, Allocation previousAllocation, Map<String, Integer> serviceLoad) {
         return violations(resourceAllocation, previousAllocation, serviceLoad) == 0;
@@ -60,25 +62,36 @@ public class Validator {
     }
 
     public boolean isVmOverallocated(VmInstance vm, List<ContainerType> containers, List<ContainerType> previousContainers) {
-        var cpuCapacity = vm.getType().getCpuUnits();
-        var memoryCapacity = vm.getType().getMemory();
-
-        var allocatedCpuPerService = containers.stream()
-                .collect(Collectors.toMap(ContainerType::getService, ContainerType::getCpuUnits));
-        var allocatedMemoryPerService = containers.stream()
-                .collect(Collectors.toMap(ContainerType::getService, ContainerType::getMemory));
-
-        var abandonedCpuPerService = previousContainers == null ? new HashMap<Service, Integer>() : previousContainers.stream()
-                .collect(Collectors.toMap(ContainerType::getService, ContainerType::getCpuUnits));
-        var abandonedMemoryPerService = previousContainers == null ? new HashMap<Service, Integer>() : previousContainers.stream()
-                .collect(Collectors.toMap(ContainerType::getService, ContainerType::getMemory));
-
-        var totalCpu = model.getServices().values().stream()
-                .map(s -> Math.max(allocatedCpuPerService.getOrDefault(s, 0), abandonedCpuPerService.getOrDefault(s, 0)))
-                .reduce(0, Integer::sum);
-        var totalMemory = model.getServices().values().stream()
-                .map(s -> Math.max(allocatedMemoryPerService.getOrDefault(s, 0), abandonedMemoryPerService.getOrDefault(s, 0)))
-                .reduce(0, Integer::sum);
+        var cpuCapacity = model.getVmCpu()[vm.getOrdinal()];
+        var memoryCapacity = model.getVmMemory()[vm.getOrdinal()];
+
+        // indexed by service ordinal
+        var allocatedCpuPerService = new int[model.getServiceList().size()];
+        var allocatedMemoryPerService = new int[model.getServiceList().size()];
+        for (var container : containers) {
+            allocatedCpuPerService[container.getService().getOrdinal()] += container.getCpuUnits();
+            allocatedMemoryPerService[container.getService().getOrdinal()] += container.getMemory();
+        }
+
+        var totalCpu = 0;
+        var totalMemory = 0;
+        if (previousContainers == null) {
+            for (int s = 0; s < allocatedCpuPerService.length; s++) {
+                totalCpu += allocatedCpuPerService[s];
+                totalMemory += allocatedMemoryPerService[s];
+            }
+        } else {
+            var abandonedCpuPerService = new int[allocatedCpuPerService.length];
+            var abandonedMemoryPerService = new int[allocatedCpuPerService.length];
+            for (var container : previousContainers) {
+                abandonedCpuPerService[container.getService().getOrdinal()] += container.getCpuUnits();
+                abandonedMemoryPerService[container.getService().getOrdinal()] += container.getMemory();
+            }
+            for (int s = 0; s < allocatedCpuPerService.length; s++) {
+                totalCpu += Math.max(allocatedCpuPerService[s], abandonedCpuPerService[s]);
+                totalMemory += Math.max(allocatedMemoryPerService[s], abandonedMemoryPerService[s]);
+            }
+        }
 
         var hasEnoughCpuAvailable = totalCpu <= cpuCapacity;
         var hasEnoughMemoryAvailable = totalMemory <= memoryCapacity;
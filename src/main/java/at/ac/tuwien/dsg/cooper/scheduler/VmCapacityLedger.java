@@ -0,0 +1,140 @@
+package at.ac.tuwien.dsg.cooper.scheduler;
+
+import at.ac.tuwien.dsg.cooper.domain.ContainerType;
+import at.ac.tuwien.dsg.cooper.domain.Service;
+import at.ac.tuwien.dsg.cooper.domain.VmInstance;
+import at.ac.tuwien.dsg.cooper.scheduler.dto.Allocation;
+
+/**
+ * Incremental bookkeeping of the CPU and memory in use per VM, for placing containers one at a time. Checking, placing
+ * and removing a container is O(1), in contrast to re-validating a VM's whole container list.
+ * <p>
+ * Same semantics as {@link Validator#isVmOverallocated}: containers of the previous allocation are abandoned but keep
+ * occupying their VM during the grace period, hence per service the larger one of the allocated and the abandoned
+ * resources is in use.
+ */
+public class VmCapacityLedger {
+
+    private final Model model;
+    private final int serviceCount;
+
+    // per VM ordinal, rows per service ordinal are created on first use
+    private final int[][] allocatedCpu;
+    private final int[][] allocatedMemory;
+    private final int[][] allocatedContainers;
+    private final int[][] abandonedCpu;
+    private final int[][] abandonedMemory;
+    private final int[] usedCpu;
+    private final int[] usedMemory;
+
+
+    public VmCapacityLedger(Model model) {
+        this(model, null);
+    }
+
+    /**
+     * @param previousAllocation containers abandoned, may be null
+     */
+    public VmCapacityLedger(Model model, Allocation previousAllocation) {
+        this.model = model;
+        this.serviceCount = model.getServiceList().size();
+
+        var vmCount = model.getVmList().size();
+        this.allocatedCpu = new int[vmCount][];
+        this.allocatedMemory = new int[vmCount][];
+        this.allocatedContainers = new int[vmCount][];
+        this.abandonedCpu = new int[vmCount][];
+        this.abandonedMemory = new int[vmCount][];
+        this.usedCpu = new int[vmCount];
+        this.usedMemory = new int[vmCount];
+
+        if (previousAllocation != null) {
+            for (var e : previousAllocation.getAllocationMap().entrySet()) {
+                var v = e.getKey().getOrdinal();
+                initRows(v);
+                for (var container : e.getValue()) {
+                    var s = container.getService().getOrdinal();
+                    var c = container.getOrdinal();
+                    abandonedCpu[v][s] += model.getContainerCpu()[c];
+                    abandonedMemory[v][s] += model.getContainerMemory()[c];
+                    usedCpu[v] += model.getContainerCpu()[c];
+                    usedMemory[v] += model.getContainerMemory()[c];
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Whether the container can be placed on the VM without overallocating it.
+     */
+    public boolean canFit(VmInstance vm, ContainerType container) {
+        var v = vm.getOrdinal();
+        var c = container.getOrdinal();
+        return usedCpu[v] + deltaCpu(v, container.getService().getOrdinal(), model.getContainerCpu()[c]) <= model.getVmCpu()[v]
+                && usedMemory[v] + deltaMemory(v, container.getService().getOrdinal(), model.getContainerMemory()[c]) <= model.getVmMemory()[v];
+    }
+
+    /**
+     * Places the container on the VM, regardless of its capacity.
+     */
+    public void place(VmInstance vm, ContainerType container) {
+        update(vm, container, 1);
+    }
+
+    public void remove(VmInstance vm, ContainerType container) {
+        update(vm, container, -1);
+    }
+
+    /**
+     * Whether a container of the service is placed on the VM.
+     */
+    public boolean hosts(VmInstance vm, Service service) {
+        var containers = allocatedContainers[vm.getOrdinal()];
+        return containers != null && containers[service.getOrdinal()] > 0;
+    }
+
+    public boolean isOverallocated(VmInstance vm) {
+        var v = vm.getOrdinal();
+        return usedCpu[v] > model.getVmCpu()[v] || usedMemory[v] > model.getVmMemory()[v];
+    }
+
+
+    private void update(VmInstance vm, ContainerType container, int count) {
+        var v = vm.getOrdinal();
+        var s = container.getService().getOrdinal();
+        var c = container.getOrdinal();
+        initRows(v);
+
+        usedCpu[v] += deltaCpu(v, s, count * model.getContainerCpu()[c]);
+        usedMemory[v] += deltaMemory(v, s, count * model.getContainerMemory()[c]);
+        allocatedCpu[v][s] += count * model.getContainerCpu()[c];
+        allocatedMemory[v][s] += count * model.getContainerMemory()[c];
+        allocatedContainers[v][s] += count;
+    }
+
+    // change of the VM's CPU in use if the service's allocated CPU changes by the given amount
+    private int deltaCpu(int v, int s, int cpu) {
+        if (allocatedCpu[v] == null) return Math.max(cpu, 0);
+        var allocated = allocatedCpu[v][s];
+        var abandoned = abandonedCpu[v][s];
+        return Math.max(allocated + cpu, abandoned) - Math.max(allocated, abandoned);
+    }
+
+    private int deltaMemory(int v, int s, int memory) {
+        if (allocatedMemory[v] == null) return Math.max(memory, 0);
+        var allocated = allocatedMemory[v][s];
+        var abandoned = abandonedMemory[v][s];
+        return Math.max(allocated + memory, abandoned) - Math.max(allocated, abandoned);
+    }
+
+    private void initRows(int v) {
+        if (allocatedCpu[v] != null) return;
+        allocatedCpu[v] = new int[serviceCount];
+        allocatedMemory[v] = new int[serviceCount];
+        allocatedContainers[v] = new int[serviceCount];
+        abandonedCpu[v] = new int[serviceCount];
+        abandonedMemory[v] = new int[serviceCount];
+    }
+
+}
@@ -13,24 +13,35 @@ import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 
 
+/**
+ * Immutable allocation of containers to VMs. Derived views are computed on first access and cached.
+ */
 public class Allocation {
 
     private final Model model;
-    private final List<VmInstance> runningVMs;
+    private final Set<VmInstance> runningVMs;
     private final Map<VmInstance, List<ContainerType>> vmContainerMapping;
-    private final Map<Service, List<AllocationTuple>> allocatedContainersByService = new HashMap<>();
+
+    // lazily computed views, racy but idempotent initialization
+    private volatile Map<Service, List<AllocationTuple>> allocatedContainersByService;
+    private volatile Map<String, Long> serviceCapacity;
+    private volatile Set<VmInstance> usedVms;
+    private volatile List<AllocationTuple> allocatedTuples;
+    private volatile List<AllocationTuple> tuples;
+    private volatile Float totalCost;
+    private volatile CompactAllocation compact;
 
     /**
-     * Creates an empty allocation (for initial state)
+     * Creates an empty allocation (for initial state), i.e. not even on-premise VMs are running
      */
     public Allocation(Model model) {
         this.model = model;
-        this.runningVMs = new ArrayList<>();
-        this.vmContainerMapping = new HashMap<>();
+        this.runningVMs = Collections.emptySet();
+        this.vmContainerMapping = Collections.emptyMap();
     }
 
     public Allocation(Allocation toClone) {
-        this(toClone.model, toClone.getTuples());
+        this(toClone.model, toClone.getAllocatedTuples());
     }
 
     public Allocation(Model model, Map<VmInstance, List<ContainerType>> vmContainerMapping) {
@@ -39,129 +50,146 @@ public class Allocation {
 
     public Allocation(Model model, Collection<VmInstance> runningVms, Map<VmInstance, List<ContainerType>> vmContainerMapping) {
         this.model = model;
-        this.runningVMs = new ArrayList<>(runningVms);
-        this.vmContainerMapping = vmContainerMapping;
-
-        init();
-    }
-
-    public Allocation(Model model, List<AllocationTuple> allocationTuples) {
-        this.model = model;
-        this.vmContainerMapping = new HashMap<>();
-        allocationTuples.stream()
-                .filter(AllocationTuple::isAllocate)
-                .forEach(a -> {
-                    MapUtils.putToMapList(vmContainerMapping, a.getVm(), a.getContainer());
-                });
-        this.runningVMs = new ArrayList<>(vmContainerMapping.keySet());
-
-        init();
-    }
 
-    private void init() {
-        var inconsistentMapping = this.vmContainerMapping.keySet().stream()
-                .anyMatch(vm -> !this.runningVMs.contains(vm));
+        var mapping = new LinkedHashMap<VmInstance, List<ContainerType>>();
+        vmContainerMapping.forEach((vm, containers) -> mapping.put(vm, List.copyOf(containers)));
+        this.vmContainerMapping = Collections.unmodifiableMap(mapping);
 
+        var inconsistentMapping = !runningVms.containsAll(vmContainerMapping.keySet());
         if (inconsistentMapping) {
             throw new IllegalStateException("cannot allocate containers on not running VM");
         }
 
         // always add on-premise VMs to running VMs
+        var running = new LinkedHashSet<>(runningVms);
         model.getDataCenters().values().stream()
                 .filter(DataCenter::isOnPremise)
-                .forEach(dc -> {
-                    dc.getVmInstances().forEach(vm -> {
-                        if (!runningVMs.contains(vm)) {
-                            runningVMs.add(vm);
-                        }
-                    });
-                });
+                .forEach(dc -> running.addAll(dc.getVmInstances()));
+        this.runningVMs = Collections.unmodifiableSet(running);
+    }
 
-        for (var e : vmContainerMapping.entrySet()) {
-            for (var containerType : e.getValue()) {
-                MapUtils.putToMapList(allocatedContainersByService, containerType.getService(), new AllocationTuple(e.getKey(), containerType, true));
-            }
-        }
+    public Allocation(Model model, List<AllocationTuple> allocationTuples) {
+        this(model, toMapping(allocationTuples));
+    }
+
+    private static Map<VmInstance, List<ContainerType>> toMapping(List<AllocationTuple> allocationTuples) {
+        var mapping = new HashMap<VmInstance, List<ContainerType>>();
+        allocationTuples.stream()
+                .filter(AllocationTuple::isAllocate)
+                .forEach(a -> {
+                    MapUtils.putToMapList(mapping, a.getVm(), a.getContainer());
+                });
+        return mapping;
     }
 
+    /**
+     * Unmodifiable.
+     */
     public Map<VmInstance, List<ContainerType>> getAllocationMap() {
         return vmContainerMapping;
     }
 
     public boolean isAllocated(ContainerType containerType, VmInstance vm) {
-        var containersOnVm = vmContainerMapping.getOrDefault(vm, new ArrayList<>());
-        return containersOnVm.contains(containerType);
+        return getCompact().isAllocated(containerType, vm);
     }
 
-    public List<VmInstance> getUsedVms() {
-        return vmContainerMapping.entrySet().stream()
-                .filter(e -> !e.getValue().isEmpty())
-                .map(Map.Entry::getKey)
-                .collect(Collectors.toList());
+    public boolean isRunning(VmInstance vm) {
+        return runningVMs.contains(vm);
+    }
+
+    public CompactAllocation getCompact() {
+        var result = compact;
+        if (result == null) {
+            compact = result = new CompactAllocation(model, vmContainerMapping, runningVMs);
+        }
+        return result;
+    }
+
+    public Set<VmInstance> getUsedVms() {
+        var result = usedVms;
+        if (result == null) {
+            result = vmContainerMapping.entrySet().stream()
+                    .filter(e -> !e.getValue().isEmpty())
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
+            usedVms = result = Collections.unmodifiableSet(result);
+        }
+        return result;
     }
 
     // VMs running, even if unused -> i.e. private cloud!
-    public List<VmInstance> getRunningVms() {
+    public Set<VmInstance> getRunningVms() {
         return runningVMs;
     }
 
     public List<AllocationTuple> getAllocatedContainersOnVm(VmInstance vm) {
-        return vmContainerMapping.getOrDefault(vm, new ArrayList<>()).stream()
+        return vmContainerMapping.getOrDefault(vm, Collections.emptyList()).stream()
                 .map(c -> new AllocationTuple(vm, c, true))
                 .collect(Collectors.toList());
     }
 
     public Map<Service, List<AllocationTuple>> getAllocatedContainersByService() {
-        return allocatedContainersByService;
+        var result = allocatedContainersByService;
+        if (result == null) {
+            var byService = new HashMap<Service, List<AllocationTuple>>();
+            for (var tuple : getAllocatedTuples()) {
+                MapUtils.putToMapList(byService, tuple.getContainer().getService(), tuple);
+            }
+            allocatedContainersByService = result = Collections.unmodifiableMap(byService);
+        }
+        return result;
     }
 
     public List<AllocationTuple> getAllocatedTuples() {
-        return vmContainerMapping.entrySet().stream()
-                .flatMap(e -> e.getValue().stream()
-                        .map(c -> new AllocationTuple(e.getKey(), c, true))
-                )
-                .collect(Collectors.toList());
+        var result = allocatedTuples;
+        if (result == null) {
+            allocatedTuples = result = vmContainerMapping.entrySet().stream()
+                    .flatMap(e -> e.getValue().stream()
+                            .map(c -> new AllocationTuple(e.getKey(), c, true))
+                    )
+                    .collect(Collectors.toUnmodifiableList());
+        }
+        return result;
     }
 
     public List<AllocationTuple> getTuples() {
-        List<AllocationTuple> resultTuples = new ArrayList<>();
-        model.getVms().values().forEach(vm -> {
-            model.getContainerTypes().forEach(type -> {
-                var containerList = getAllocationMap().getOrDefault(vm, Collections.emptyList());
-                var allocate = containerList.contains(type);
-                var tuple = new AllocationTuple(vm, type, allocate);
-                resultTuples.add(tuple);
+        var result = tuples;
+        if (result == null) {
+            var resultTuples = new ArrayList<AllocationTuple>();
+            model.getVms().values().forEach(vm -> {
+                var containerList = vmContainerMapping.getOrDefault(vm, Collections.emptyList());
+                model.getContainerTypes().forEach(type -> {
+                    var allocate = containerList.contains(type);
+                    var tuple = new AllocationTuple(vm, type, allocate);
+                    resultTuples.add(tuple);
+                });
             });
-        });
-        return resultTuples;
+            tuples = result = Collections.unmodifiableList(resultTuples);
+        }
+        return result;
     }
 
     public float getTotalCost() {
-        return getRunningVms().stream()
-                .map(vm -> vm.getType().getCost())
-                .reduce(0f, Float::sum);
+        var result = totalCost;
+        if (result == null) {
+            totalCost = result = getRunningVms().stream()
+                    .map(vm -> vm.getType().getCost())
+                    .reduce(0f, Float::sum);
+        }
+        return result;
     }
 
 
     public Map<String, Long> getServiceCapacity() {
-        var capacityPerService = new HashMap<String, Long>();
-        for (var allocatedServiceInstance : allocatedContainersByService.entrySet()) {
-            var service = allocatedServiceInstance.getKey();
-            var containerInstances = allocatedServiceInstance.getValue();
-
-            var serviceCapacity = containerInstances.stream()
-                    .map(c -> c.getContainer().getRpmCapacity())
-                    .reduce(0L, Long::sum);
-            capacityPerService.put(service.getName(), serviceCapacity);
+        var result = serviceCapacity;
+        if (result == null) {
+            var capacityPerService = new HashMap<String, Long>();
+            for (var tuple : getAllocatedTuples()) {
+                capacityPerService.merge(tuple.getContainer().getService().getName(), tuple.getContainer().getRpmCapacity(), Long::sum);
+            }
+            serviceCapacity = result = Collections.unmodifiableMap(capacityPerService);
         }
-        return capacityPerService;
-    }
-
-
-    private List<ContainerType> getAllocatedContainers() {
-        return vmContainerMapping.values().stream()
-                .flatMap(Collection::stream)
-                .collect(Collectors.toList());
+        return result;
     }
 
 
@@ -0,0 +1,87 @@
+package at.ac.tuwien.dsg.cooper.scheduler.dto;
+
+import at.ac.tuwien.dsg.cooper.domain.ContainerType;
+import at.ac.tuwien.dsg.cooper.domain.VmInstance;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import lombok.Getter;
+
+/**
+ * Changes needed to get from one allocation to another: VMs to launch and kill, containers to start and stop.
+ * <p>
+ * Computed from the running VMs and allocated containers of both allocations only, i.e. in time proportional to their
+ * size rather than to all VM x container type combinations. Each list is in ordinal order (VM, then container type).
+ */
+@Getter
+public class AllocationDiff {
+
+    private static final Comparator<Allocation.AllocationTuple> TUPLE_ORDER =
+            Comparator.<Allocation.AllocationTuple>comparingInt(t -> t.getVm().getOrdinal())
+                    .thenComparingInt(t -> t.getContainer().getOrdinal());
+
+    private final List<VmInstance> vmsToLaunch;
+    private final List<VmInstance> vmsToKill;
+    // tuples to start resp. stop are allocated ones, i.e. equal to the tuples of the running container instances
+    private final List<Allocation.AllocationTuple> containersToStart;
+    private final List<Allocation.AllocationTuple> containersToStop;
+
+
+    private AllocationDiff(List<VmInstance> vmsToLaunch, List<VmInstance> vmsToKill,
+                           List<Allocation.AllocationTuple> containersToStart,
+                           List<Allocation.AllocationTuple> containersToStop) {
+        this.vmsToLaunch = Collections.unmodifiableList(vmsToLaunch);
+        this.vmsToKill = Collections.unmodifiableList(vmsToKill);
+        this.containersToStart = Collections.unmodifiableList(containersToStart);
+        this.containersToStop = Collections.unmodifiableList(containersToStop);
+    }
+
+
+    public static AllocationDiff between(Allocation current, Allocation target) {
+        var currentMapping = current.getAllocationMap();
+        var targetMapping = target.getAllocationMap();
+
+        return new AllocationDiff(
+                vmsNotIn(target.getRunningVms(), current),
+                vmsNotIn(current.getRunningVms(), target),
+                containersNotIn(targetMapping, currentMapping),
+                containersNotIn(currentMapping, targetMapping)
+        );
+    }
+
+    public boolean isEmpty() {
+        return vmsToLaunch.isEmpty() && vmsToKill.isEmpty() && containersToStart.isEmpty() && containersToStop.isEmpty();
+    }
+
+
+    private static List<VmInstance> vmsNotIn(Set<VmInstance> vms, Allocation other) {
+        var result = new ArrayList<VmInstance>();
+        for (var vm : vms) {
+            if (!other.isRunning(vm)) {
+                result.add(vm);
+            }
+        }
+        result.sort(Comparator.comparingInt(VmInstance::getOrdinal));
+        return result;
+    }
+
+    private static List<Allocation.AllocationTuple> containersNotIn(Map<VmInstance, List<ContainerType>> mapping,
+                                                                    Map<VmInstance, List<ContainerType>> other) {
+        var result = new ArrayList<Allocation.AllocationTuple>();
+        mapping.forEach((vm, containers) -> {
+            // at most one container per service on a VM, hence the lists are short
+            var otherContainers = other.getOrDefault(vm, Collections.emptyList());
+            for (var container : containers) {
+                if (!otherContainers.contains(container)) {
+                    result.add(new Allocation.AllocationTuple(vm, container, true));
+                }
+            }
+        });
+        result.sort(TUPLE_ORDER);
+        return result;
+    }
+
+}
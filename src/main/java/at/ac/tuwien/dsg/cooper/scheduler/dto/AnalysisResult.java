@@ -3,14 +3,12 @@ package at.ac.tuwien.dsg.cooper.scheduler.dto;
 import java.util.Map;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
-import org.jgrapht.graph.DefaultWeightedEdge;
-import org.jgrapht.graph.SimpleWeightedGraph;
 
 @Data
 @RequiredArgsConstructor
 public class AnalysisResult {
 
-    private final SimpleWeightedGraph<String, DefaultWeightedEdge> affinityGraph;
+    private final float[][] affinity; // affinity[i][j]: share of the system load exchanged between services i and j (by ordinals)
 
     private final boolean isCurrentAllocationUnderprovisioned;
     private final boolean isCurrentAllocationValid;
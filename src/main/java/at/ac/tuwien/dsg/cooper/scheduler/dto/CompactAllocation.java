@@ -0,0 +1,130 @@
+package at.ac.tuwien.dsg.cooper.scheduler.dto;
+
+import at.ac.tuwien.dsg.cooper.domain.ContainerType;
+import at.ac.tuwien.dsg.cooper.domain.VmInstance;
+import at.ac.tuwien.dsg.cooper.scheduler.Model;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact form of an {@link Allocation}: the allocated container type per service and VM, and the running VMs as a bit
+ * set. At most one container per service may be allocated on a VM (cf. ILP constraint 4.9), hence the service x VM
+ * matrix represents an allocation completely.
+ * <p>
+ * Immutable, the hash code is computed once. Obtained via {@link Allocation#getCompact()}.
+ */
+public final class CompactAllocation {
+
+    private final Model model;
+    private final int vmCount;
+    private final int serviceCount;
+    // [s * vmCount + v] = container type ordinal + 1, 0 = none
+    private final int[] containers;
+    private final BitSet runningVms;
+    private final int hash;
+
+
+    CompactAllocation(Model model, Map<VmInstance, List<ContainerType>> allocationMap, Iterable<VmInstance> runningVms) {
+        this.model = model;
+        this.vmCount = model.getVmList().size();
+        this.serviceCount = model.getServiceList().size();
+
+        this.containers = new int[serviceCount * vmCount];
+        allocationMap.forEach((vm, containerTypes) -> {
+            for (var container : containerTypes) {
+                var i = container.getService().getOrdinal() * vmCount + vm.getOrdinal();
+                if (containers[i] != 0) {
+                    throw new IllegalArgumentException("multiple containers of " + container.getService().getName() + " on VM " + vm.getId());
+                }
+                containers[i] = container.getOrdinal() + 1;
+            }
+        });
+
+        this.runningVms = new BitSet(vmCount);
+        runningVms.forEach(vm -> this.runningVms.set(vm.getOrdinal()));
+
+        this.hash = 31 * Arrays.hashCode(containers) + this.runningVms.hashCode();
+    }
+
+
+    /**
+     * Ordinal of the container type of service s allocated on VM v, -1 if none.
+     */
+    public int getContainer(int s, int v) {
+        return containers[s * vmCount + v] - 1;
+    }
+
+    public boolean isAllocated(ContainerType container, VmInstance vm) {
+        return containers[container.getService().getOrdinal() * vmCount + vm.getOrdinal()] == container.getOrdinal() + 1;
+    }
+
+    public boolean isRunning(VmInstance vm) {
+        return runningVms.get(vm.getOrdinal());
+    }
+
+    public int getVmCount() {
+        return vmCount;
+    }
+
+    public int getServiceCount() {
+        return serviceCount;
+    }
+
+    /**
+     * Indices ({@code s * vmCount + v}) of the service/VM cells allocated differently in the other allocation, in
+     * ascending order.
+     */
+    public int[] changedCells(CompactAllocation other) {
+        var changed = new int[containers.length];
+        var count = 0;
+        for (int i = 0; i < containers.length; i++) {
+            if (containers[i] != other.containers[i]) {
+                changed[count++] = i;
+            }
+        }
+        return Arrays.copyOf(changed, count);
+    }
+
+    /**
+     * Ordinals of the VMs running in only one of both allocations.
+     */
+    public BitSet changedRunningVms(CompactAllocation other) {
+        var changed = (BitSet) runningVms.clone();
+        changed.xor(other.runningVms);
+        return changed;
+    }
+
+    public Allocation toAllocation() {
+        var vms = model.getVmList();
+        var containerTypes = model.getContainerTypes();
+
+        var allocationMap = new HashMap<VmInstance, List<ContainerType>>();
+        for (int i = 0; i < containers.length; i++) {
+            if (containers[i] != 0) {
+                allocationMap.computeIfAbsent(vms.get(i % vmCount), vm -> new ArrayList<>())
+                        .add(containerTypes.get(containers[i] - 1));
+            }
+        }
+        var running = new ArrayList<VmInstance>();
+        runningVms.stream().forEach(v -> running.add(vms.get(v)));
+        return new Allocation(model, running, allocationMap);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CompactAllocation)) return false;
+        var other = (CompactAllocation) o;
+        return hash == other.hash && Arrays.equals(containers, other.containers) && runningVms.equals(other.runningVms);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+}
@@ -3,8 +3,6 @@ package at.ac.tuwien.dsg.cooper.scheduler.dto;
 import java.util.Map;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
-import org.jgrapht.graph.DefaultWeightedEdge;
-import org.jgrapht.graph.SimpleDirectedWeightedGraph;
 
 @RequiredArgsConstructor
 @Getter
@@ -13,5 +11,5 @@ public class MonitoringResult {
     private final Map<String, Integer> internalServiceLoad;
     private final Map<String, Integer> totalServiceLoad;
     private final Integer totalSystemLoad;
-    private final SimpleDirectedWeightedGraph<String, DefaultWeightedEdge> interactionGraph;
-}
\ No newline at end of file
+    private final float[][] interaction; // interaction[i][j]: calls from service i to service j (by ordinals), must not be modified
+}
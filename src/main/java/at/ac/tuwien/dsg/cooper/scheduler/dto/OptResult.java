@@ -17,6 +17,10 @@ public class OptResult {
     private Float fitness;
     private Float neutralFitness;
     private Long runtimeInMilliseconds;
+    private Long generations; // evolved generations (GA only)
+    private String terminationReason; // why the optimization stopped (GA only)
+    private Float repairRate; // share of the individuals of all generations repaired by the constraint (GA only)
+    private Long planAge; // seconds between the state optimized for and the adoption of the result (> 0 if planned asynchronously)
 
 
     public OptResult(Model model, SystemMeasures underlyingMeasures, Map<VmInstance, List<ContainerType>> allocationMapping) {
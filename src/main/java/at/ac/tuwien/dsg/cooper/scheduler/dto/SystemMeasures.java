@@ -6,10 +6,10 @@ import java.util.Map;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
-import org.jgrapht.graph.DefaultWeightedEdge;
-import org.jgrapht.graph.SimpleDirectedWeightedGraph;
-import org.jgrapht.graph.SimpleWeightedGraph;
 
+/**
+ * Interaction and affinity between services are held as matrices indexed by service ordinal.
+ */
 @Getter
 @RequiredArgsConstructor
 public class SystemMeasures {
@@ -20,11 +20,11 @@ public class SystemMeasures {
     private final Map<String, Integer> internalServiceLoad;
     private final Map<String, Integer> totalServiceLoad;
     private final Integer totalSystemLoad;
-    private final SimpleDirectedWeightedGraph<String, DefaultWeightedEdge> interactionGraph;
+    private final float[][] interaction; // interaction[i][j]: calls from service i to service j
     private final Allocation currentAllocation;
 
     @Setter
-    private SimpleWeightedGraph<String, DefaultWeightedEdge> affinityGraph;
+    private volatile float[][] affinity; // symmetric, set by the analyzer
 
 
     public SystemMeasures(Model model, MonitoringResult toClone, Allocation currentAllocation) {
@@ -33,28 +33,19 @@ public class SystemMeasures {
                 toClone.getInternalServiceLoad(),
                 toClone.getTotalServiceLoad(),
                 toClone.getTotalSystemLoad(),
-                toClone.getInteractionGraph(),
+                toClone.getInteraction(),
                 currentAllocation);
     }
 
 
     public int getInteractionBetween(Service from, Service to) {
-        var edge = interactionGraph.getEdge(from.getName(), to.getName());
-
-        var interaction = (int) interactionGraph.getEdgeWeight(edge);
-        return interaction;
+        return Math.round(interaction[from.getOrdinal()][to.getOrdinal()]);
     }
 
     public double getAffinityBetween(Service serviceA,
                                      Service serviceB) {
-        var isSameService = serviceA.equals(serviceB);
-        if (isSameService) {
-            // No affinity between the same service possible, graph contains no loops
-            return 0;
-        }
-        var edge = affinityGraph.getEdge(serviceA.getName(), serviceB.getName());
-        var affinity = affinityGraph.getEdgeWeight(edge);
-        return affinity;
+        // no affinity between the same service, the diagonal is 0
+        return affinity[serviceA.getOrdinal()][serviceB.getOrdinal()];
     }
 
 }
@@ -13,8 +13,6 @@ import java.util.Collections;
 import java.util.Map;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
-import org.jgrapht.graph.DefaultWeightedEdge;
-import org.jgrapht.graph.SimpleWeightedGraph;
 
 @Slf4j
 public class Analyzer {
@@ -35,8 +33,8 @@ public class Analyzer {
         var currentMeasures = state.getCurrentSystemMeasures();
 
         // first, determine affinity
-        var affinityGraph = buildAffinityGraph(state);
-        currentMeasures.setAffinityGraph(affinityGraph);
+        var affinity = computeAffinity(currentMeasures);
+        currentMeasures.setAffinity(affinity);
 
         // compare fitness/load/capacity of current allocation vs. last optimization
         var loadDriftByService = computeLoadDrift(currentMeasures, lastOptimization);
@@ -47,7 +45,7 @@ public class Analyzer {
         var isCurrentAllocationValid = validator.isAllocationValidNeutral(currentAllocation, currentMeasures.getTotalServiceLoad());
 
         return new AnalysisResult(
-                affinityGraph,
+                affinity,
                 isCurrentAllocationUnderprovisioned,
                 isCurrentAllocationValid,
                 loadDriftByService,
@@ -124,28 +122,22 @@ public class Analyzer {
         return capacity < load;
     }
 
-    private SimpleWeightedGraph<String, DefaultWeightedEdge> buildAffinityGraph(State state) {
-        var affinityGraph = new SimpleWeightedGraph<String, DefaultWeightedEdge>(DefaultWeightedEdge.class);
+    private float[][] computeAffinity(SystemMeasures measures) {
+        var services = model.getServiceList();
+        var affinity = new float[services.size()][services.size()];
+        var totalSystemLoad = (double) measures.getTotalSystemLoad();
 
-        model.getServices().values().forEach(s -> affinityGraph.addVertex(s.getName()));
-        model.getServices().values().forEach(s1 -> {
-            model.getServices().values().forEach(s2 -> {
-                if (!s1.equals(s2)) {
-                    affinityGraph.addEdge(s1.getName(), s2.getName(), new DefaultWeightedEdge());
+        for (int i = 0; i < services.size(); i++) {
+            for (int j = i + 1; j < services.size(); j++) {
+                var interaction1 = measures.getInteractionBetween(services.get(i), services.get(j));
+                var interaction2 = measures.getInteractionBetween(services.get(j), services.get(i));
 
-                    var interaction1 = state.getCurrentSystemMeasures().getInteractionBetween(s1, s2);
-                    var interaction2 = state.getCurrentSystemMeasures().getInteractionBetween(s2, s1);
-
-                    var bidirectionalInteraction = interaction1 + interaction2;
-                    var affinity = (double) bidirectionalInteraction / (double) state.getCurrentSystemMeasures().getTotalSystemLoad();
-
-                    var edge = affinityGraph.getEdge(s1.getName(), s2.getName());
-                    affinityGraph.setEdgeWeight(edge, affinity);
-                }
-            });
-        });
+                var bidirectionalInteraction = interaction1 + interaction2;
+                affinity[i][j] = affinity[j][i] = (float) (bidirectionalInteraction / totalSystemLoad);
+            }
+        }
 
-        return affinityGraph;
+        return affinity;
     }
 
 }
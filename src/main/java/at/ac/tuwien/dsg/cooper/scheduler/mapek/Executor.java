@@ -1,88 +1,213 @@
 package at.ac.tuwien.dsg.cooper.scheduler.mapek;
 
+import at.ac.tuwien.dsg.cooper.api.AsyncCloudController;
 import at.ac.tuwien.dsg.cooper.api.CloudController;
+import at.ac.tuwien.dsg.cooper.config.OptimizationConfig;
 import at.ac.tuwien.dsg.cooper.domain.VmInstance;
 import at.ac.tuwien.dsg.cooper.scheduler.Model;
 import at.ac.tuwien.dsg.cooper.scheduler.State;
 import at.ac.tuwien.dsg.cooper.scheduler.dto.Allocation;
+import at.ac.tuwien.dsg.cooper.scheduler.dto.AllocationDiff;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 public class Executor {
 
     private final Model model;
+    private final int concurrency;
+    private final ExecutorService cloudPool; // null if sequential
+    private final java.util.concurrent.Executor cloudExecutor;
 
-    public Executor(Model model) {
+    public Executor(Model model, OptimizationConfig config) {
         this.model = model;
+        this.concurrency = Math.max(1, Objects.requireNonNullElse(config.getExecutionConcurrency(), 1));
+        this.cloudPool = buildCloudPool(concurrency);
+        this.cloudExecutor = cloudPool == null ? Runnable::run : cloudPool;
+    }
+
+    /**
+     * Blocking cloud controllers are called on this pool, bounding the number of provider operations in progress. A
+     * concurrency of 1 calls them on the calling thread, one after another.
+     */
+    private static ExecutorService buildCloudPool(int concurrency) {
+        if (concurrency == 1) {
+            return null;
+        }
+        log.debug("Executing up to {} batches of cloud operations concurrently", concurrency);
+        var threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(concurrency, r -> {
+            var thread = new Thread(r, "executor-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Releases the threads issuing cloud operations, the executor must not be used afterwards.
+     */
+    public void shutdown() {
+        if (cloudPool != null) cloudPool.shutdown();
     }
 
 
+    /**
+     * Issues the operations needed to reach the new target allocation in two dependency stages: VMs are launched and
+     * the containers to stop are stopped first, then containers are started and VMs killed. Each stage's operations
+     * are issued as up to as many concurrent batches as the executor has threads. An operation whose dependency failed
+     * (its VM's launch or a container stop on its VM) is not issued and fails as well, as do all operations of a failed
+     * batch. Returns when all operations completed, the provider state is updated on the calling thread. If any
+     * operation failed, the successful ones are still recorded before the failure is rethrown, keeping the provider
+     * state in line with the provider.
+     */
     public void execute(CloudController cloudController, Allocation newTargetAllocation, State state) {
         var providerState = state.getProviderState();
-        List<VmInstance> vmsToLaunch = new ArrayList<>();
-        List<VmInstance> vmsToKill = new ArrayList<>();
+        var diff = AllocationDiff.between(state.getCurrentTargetAllocation(), newTargetAllocation);
+        if (diff.isEmpty()) return;
+
+        var cloud = AsyncCloudController.of(cloudController, cloudExecutor);
+
+        // stage 1: launching VMs and stopping containers are independent of each other
+        var vmTypes = diff.getVmsToLaunch().stream()
+                .map(vm -> CompletableFuture.completedFuture(vm.getType().getLabel()))
+                .collect(Collectors.toList());
+        var launchedVms = inBatches(vmTypes, types -> cloud.launchVmsAsync(types, "DC-1"));
+        Map<VmInstance, CompletableFuture<Long>> providerVmIds = new HashMap<>();
+        for (int i = 0; i < diff.getVmsToLaunch().size(); i++) {
+            providerVmIds.put(diff.getVmsToLaunch().get(i), launchedVms.get(i));
+        }
+
+        var stopIds = diff.getContainersToStop().stream()
+                .map(a -> CompletableFuture.completedFuture(providerState.getRunningProviderContainers().get(a)))
+                .collect(Collectors.toList());
+        var stoppedContainers = inBatches(stopIds, ids -> cloud.terminateContainersAsync(ids).thenApply(done -> nulls(ids)));
+        Map<VmInstance, List<CompletableFuture<Void>>> stoppedContainersByVm = new HashMap<>();
+        for (int i = 0; i < diff.getContainersToStop().size(); i++) {
+            stoppedContainersByVm.computeIfAbsent(diff.getContainersToStop().get(i).getVm(), vm -> new ArrayList<>())
+                    .add(stoppedContainers.get(i));
+        }
+
+        awaitAll(launchedVms, stoppedContainers);
+
+        // stage 2: containers are started on their launched VMs once the containers to stop there are stopped,
+        // VMs are killed once their containers are stopped
+        var launchDependencies = diff.getContainersToStart().stream()
+                .map(a -> allOf(stoppedContainersByVm.get(a.getVm())).thenCombine(
+                        providerVmIds.getOrDefault(a.getVm(), CompletableFuture.completedFuture(providerState.getLeasedProviderVms().get(a.getVm()))),
+                        (stopped, vmId) -> new CloudController.ContainerLaunch(1, a.getContainer().getMemory(), vmId)))
+                .collect(Collectors.toList());
+        var providerContainerIds = inBatches(launchDependencies, cloud::launchContainersAsync);
+
+        var killDependencies = diff.getVmsToKill().stream()
+                .map(vm -> allOf(stoppedContainersByVm.get(vm))
+                        .thenApply(stopped -> providerState.getLeasedProviderVms().get(vm)))
+                .collect(Collectors.toList());
+        var killedVms = inBatches(killDependencies, ids -> cloud.terminateVmsAsync(ids).thenApply(done -> nulls(ids)));
+
+        awaitAll(providerContainerIds, killedVms);
+
+        diff.getVmsToLaunch().forEach(vm -> {
+            var providerVmId = providerVmIds.get(vm);
+            if (succeeded(providerVmId)) {
+                providerState.getLeasedProviderVms().put(vm, providerVmId.join());
+            }
+        });
 
-        model.getVms().values().forEach(vm -> {
-            var isRunning = state.getCurrentTargetAllocation().getRunningVms().contains(vm);
-            var shouldRun = newTargetAllocation.getRunningVms().contains(vm);
+        for (int i = 0; i < diff.getContainersToStop().size(); i++) {
+            if (succeeded(stoppedContainers.get(i))) {
+                providerState.deallocateContainerInstance(diff.getContainersToStop().get(i));
+            }
+        }
+
+        for (int i = 0; i < diff.getContainersToStart().size(); i++) {
+            var a = diff.getContainersToStart().get(i);
+            var providerContainerId = providerContainerIds.get(i);
+            if (succeeded(providerContainerId)) {
+                providerState.allocateContainerInstance(a, providerContainerId.join());
+                state.updateCacheState(a.getVm(), a.getContainer().getService());
+            }
+        }
 
-            if (!isRunning && shouldRun) {
-                vmsToLaunch.add(vm);
-            } else if (isRunning && !shouldRun) {
-                vmsToKill.add(vm);
+        for (int i = 0; i < diff.getVmsToKill().size(); i++) {
+            var vm = diff.getVmsToKill().get(i);
+            if (succeeded(killedVms.get(i))) {
+                state.resetCacheState(vm);
+                providerState.releaseVm(vm);
             }
-        });
+        }
+
+        // fails with the first failed operation
+        Stream.of(launchedVms, stoppedContainers, providerContainerIds, killedVms)
+                .flatMap(List::stream)
+                .filter(CompletableFuture::isCompletedExceptionally)
+                .findFirst()
+                .ifPresent(CompletableFuture::join);
+    }
 
-        List<Allocation.AllocationTuple> containersToStart = new ArrayList<>();
-        List<Allocation.AllocationTuple> containersToStop = new ArrayList<>();
-
-        newTargetAllocation.getTuples()
-                .forEach(a -> {
-                    var allocate = a.isAllocate();
-                    var containersRunningOnVm = state.getCurrentTargetAllocation().getAllocatedContainersOnVm(a.getVm());
-                    var isAlreadyRunningOnVm = containersRunningOnVm.stream().anyMatch(a2 -> a2.isSameAllocation(a));
-
-                    if (allocate && !isAlreadyRunningOnVm) {
-                        containersToStart.add(a);
-                    } else if (!allocate && isAlreadyRunningOnVm) {
-                        containersToStop.add(a);
-                    } else {
-                        // nothing to do
-                    }
-                });
-
-        vmsToLaunch.forEach(vm -> {
-            var providerId = cloudController.launchVm(vm.getType().getLabel(), "DC-1");
-            providerState.getLeasedProviderVms().put(vm, providerId);
-        });
+    /**
+     * Issues the operation in batches of the given items, returning a future per item. Items given as failed futures
+     * are not issued, their futures stay failed. Up to as many batches are issued as operations may be in progress
+     * concurrently.
+     */
+    private <T, R> List<CompletableFuture<R>> inBatches(List<CompletableFuture<T>> items,
+                                                        Function<List<T>, CompletableFuture<List<R>>> batchOperation) {
+        var results = new ArrayList<CompletableFuture<R>>(items.size());
+        var issuable = new ArrayList<T>();
+        var issuableIndexes = new ArrayList<Integer>();
+        for (int i = 0; i < items.size(); i++) {
+            var item = items.get(i);
+            if (succeeded(item)) {
+                issuable.add(item.join());
+                issuableIndexes.add(i);
+                results.add(null);
+            } else {
+                results.add(item.thenApply(failed -> null));
+            }
+        }
+
+        var batchSize = Math.max(1, (issuable.size() + concurrency - 1) / concurrency);
+        for (int from = 0; from < issuable.size(); from += batchSize) {
+            var to = Math.min(issuable.size(), from + batchSize);
+            var batch = batchOperation.apply(List.copyOf(issuable.subList(from, to)));
+            for (int i = from; i < to; i++) {
+                var offset = i - from;
+                results.set(issuableIndexes.get(i), batch.thenApply(batchResults -> batchResults.get(offset)));
+            }
+        }
+        return results;
+    }
 
-        containersToStop.forEach(a -> {
-            var containersRunningOnVm = state.getCurrentTargetAllocation().getAllocatedContainersOnVm(a.getVm());
-            var runningContainer = containersRunningOnVm.stream()
-                    .filter(a2 -> a2.isSameAllocation(a))
-                    .findAny()
-                    .orElseThrow();
+    private static List<Void> nulls(List<?> items) {
+        return Collections.nCopies(items.size(), null);
+    }
 
-            var providerContainerId = providerState.getRunningProviderContainers().get(runningContainer);
-            cloudController.terminateContainer(providerContainerId);
-            providerState.deallocateContainerInstance(runningContainer);
-        });
+    /**
+     * Waits for all operations, also if any failed.
+     */
+    private static void awaitAll(List<? extends CompletableFuture<?>> operations, List<? extends CompletableFuture<?>> moreOperations) {
+        var all = new ArrayList<CompletableFuture<?>>(operations);
+        all.addAll(moreOperations);
+        CompletableFuture.allOf(all.toArray(CompletableFuture[]::new)).exceptionally(ex -> null).join();
+    }
 
-        containersToStart.forEach(a -> {
-            var providerVmId = providerState.getLeasedProviderVms().get(a.getVm());
-            var providerId = cloudController.launchContainer(1, a.getContainer().getMemory(), providerVmId);
-            providerState.allocateContainerInstance(a, providerId);
-            state.updateCacheState(a.getVm(), a.getContainer().getService());
-        });
+    private static boolean succeeded(CompletableFuture<?> operation) {
+        return !operation.isCompletedExceptionally();
+    }
 
-        vmsToKill.forEach(vm -> {
-            var providerId = providerState.getLeasedProviderVms().get(vm);
-            state.resetCacheState(vm);
-            cloudController.terminateVm(providerId);
-            providerState.releaseVm(vm);
-        });
+    private static CompletableFuture<Void> allOf(List<CompletableFuture<Void>> futures) {
+        return futures == null ? CompletableFuture.completedFuture(null) : CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new));
     }
 
 }
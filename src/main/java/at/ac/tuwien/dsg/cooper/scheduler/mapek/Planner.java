@@ -3,6 +3,7 @@ package at.ac.tuwien.dsg.cooper.scheduler.mapek;
 import at.ac.tuwien.dsg.cooper.api.Optimizer;
 import at.ac.tuwien.dsg.cooper.config.OptimizationConfig;
 import at.ac.tuwien.dsg.cooper.domain.ContainerType;
+import at.ac.tuwien.dsg.cooper.domain.Service;
 import at.ac.tuwien.dsg.cooper.domain.VmInstance;
 import at.ac.tuwien.dsg.cooper.genetic.FitnessFunction;
 import at.ac.tuwien.dsg.cooper.genetic.GeneticAlgorithmOptimizer;
@@ -11,7 +12,15 @@ import at.ac.tuwien.dsg.cooper.scheduler.*;
 import at.ac.tuwien.dsg.cooper.scheduler.dto.Allocation;
 import at.ac.tuwien.dsg.cooper.scheduler.dto.ExecutionPlan;
 import at.ac.tuwien.dsg.cooper.scheduler.dto.OptResult;
+import at.ac.tuwien.dsg.cooper.scheduler.dto.SystemMeasures;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
@@ -28,14 +37,16 @@ public class Planner {
     private final Validator validator;
     private final OptimizationConfig config;
     private final FitnessFunction fitnessFunction;
-    private final Optimizer geneticOptimizer;
+    private final GeneticAlgorithmOptimizer geneticOptimizer;
     private final Optimizer ilpOptimizer;
     private final Optimizer firstFitOptimizer;
 
     @Getter
     private final List<OptResult> greedyOptimizations = new ArrayList<>();
     @Getter
-    private final List<OptResult> optimizations = new ArrayList<>();
+    private final List<OptResult> optimizations = Collections.synchronizedList(new ArrayList<>());
+    @Getter
+    private long discardedOptimizations = 0L; // results of asynchronous planning found stale on completion
 
 
     private static final float LOAD_DRIFT_TOLERANCE = 2.0f; // percentage
@@ -56,6 +67,18 @@ public class Planner {
 //        private final List<String> vmKillList; // last
     }
 
+    /**
+     * Optimization running in the background, against a snapshot of the state at the given clock.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    private static class PendingOptimization {
+        private final long clock; // seconds
+        private final long startNanos;
+        private final Allocation previousAllocation;
+        private final CompletableFuture<OptResult> result;
+    }
+
 
     public Planner(Model model, Validator validator, OptimizationConfig config) {
         this.model = model;
@@ -65,11 +88,53 @@ public class Planner {
         this.geneticOptimizer = new GeneticAlgorithmOptimizer(model, config, validator);
         this.ilpOptimizer = new IlpOptimizer(model, config);
         this.firstFitOptimizer = new FirstFitOptimizer(model);
+        this.planningExecutor = config.getAsyncPlanning() ? Executors.newSingleThreadExecutor(r -> {
+            var thread = new Thread(r, "planner");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
     }
 
     private ReallocationPlan currentReallocation = null;
 
-    public ExecutionPlan plan(State state) {
+    // asynchronous planning only
+    private final ExecutorService planningExecutor;
+    private PendingOptimization pendingOptimization = null;
+
+    /**
+     * Wall-clock time available for planning within one scheduling cycle, bounds the GA's runtime.
+     */
+    public void setCycleBudget(Duration cycleBudget) {
+        geneticOptimizer.setCycleBudget(cycleBudget);
+    }
+
+    /**
+     * Releases the optimizer and planning threads, the planner must not be used afterwards. An optimization still
+     * running in the background is abandoned.
+     */
+    public void shutdown() {
+        geneticOptimizer.shutdown();
+        if (planningExecutor != null) planningExecutor.shutdownNow();
+    }
+
+    /**
+     * Whether neither a reallocation nor an (asynchronous) optimization is in progress.
+     */
+    public boolean isIdle() {
+        return currentReallocation == null && pendingOptimization == null;
+    }
+
+    /**
+     * Whether an asynchronous optimization is in progress, i.e. the allocation may lag behind the load.
+     */
+    public boolean isOptimizationPending() {
+        return pendingOptimization != null;
+    }
+
+    /**
+     * @param clock seconds elapsed, for the age of asynchronously planned results
+     */
+    public ExecutionPlan plan(State state, long clock) {
         var isInGracePeriod = currentReallocation != null;
 
         if (isInGracePeriod) {
@@ -81,22 +146,97 @@ public class Planner {
                 return new ExecutionPlan(resultingTargetAllocation, drainedTargetAllocation);
             }
             return new ExecutionPlan(resultingTargetAllocation);
+        } else if (planningExecutor != null && state.getLastOptResult() != null) {
+            // the initial allocation is planned synchronously, there is nothing to run meanwhile
+            return planAsync(state, clock);
         } else {
             if (!isOptimizationRequired(state)) {
                 log.info("Current allocation within drift margins. No optimization triggered.");
                 return noOpExecution(state.getCurrentTargetAllocation());
             }
 
-            var optimizationResult = optimize(state.getCurrentTargetAllocation(), state);
-            var reallocationPlan = buildReallocationPlan(optimizationResult, state);
-            var resultingTargetAllocation = applyReallocation(state.getCurrentTargetAllocation(), reallocationPlan);
+            var optimizationResult = optimize(state.getCurrentTargetAllocation(), state.getCurrentSystemMeasures(), state.getImageCacheState());
+            optimizationResult.setPlanAge(0L);
+            return startReallocation(optimizationResult, state);
+        }
+    }
+
+    /**
+     * Optimizes in the background, against a snapshot of the state, while the scheduling cycle continues. A finished
+     * result is adopted at the next cycle, unless it is stale: if it is no longer valid for the current load and
+     * allocation, it is discarded and a new optimization is started if required.
+     */
+    private ExecutionPlan planAsync(State state, long clock) {
+        if (pendingOptimization != null) {
+            var pending = pendingOptimization;
+            var optimizationResult = awaitOptimization(pending, clock);
+            if (optimizationResult == null) {
+                log.info("Optimization in progress since {}s.", clock - pending.getClock());
+                return noOpExecution(state.getCurrentTargetAllocation());
+            }
+            pendingOptimization = null;
+            optimizationResult.setPlanAge(clock - pending.getClock());
+
+            if (isStale(optimizationResult, pending, state)) {
+                discardedOptimizations++;
+                log.warn("Discarding stale optimization result planned {}s ago.", optimizationResult.getPlanAge());
+            } else {
+                return startReallocation(optimizationResult, state);
+            }
+        }
+
+        if (!isOptimizationRequired(state)) {
+            log.info("Current allocation within drift margins. No optimization triggered.");
+            return noOpExecution(state.getCurrentTargetAllocation());
+        }
+
+        var previousAllocation = state.getCurrentTargetAllocation(); // immutable
+        var measures = state.getCurrentSystemMeasures();
+        var imageCacheState = state.copyImageCacheState();
+        var result = CompletableFuture.supplyAsync(() -> optimize(previousAllocation, measures, imageCacheState), planningExecutor);
+        pendingOptimization = new PendingOptimization(clock, System.nanoTime(), previousAllocation, result);
+        log.info("Optimization started in the background.");
 
-            this.currentReallocation = reallocationPlan;
+        return noOpExecution(state.getCurrentTargetAllocation());
+    }
 
-            return new ExecutionPlan(resultingTargetAllocation, optimizationResult);
+    /**
+     * The result of the pending optimization, null if it is still in progress. The cloud's clock may advance faster
+     * than wall-clock time (simulation), hence the optimization is granted the time elapsed on the clock since its
+     * snapshot; on a cloud operating in real time, this does not block.
+     */
+    private OptResult awaitOptimization(PendingOptimization pending, long clock) {
+        var grantedNanos = TimeUnit.SECONDS.toNanos(clock - pending.getClock()) - (System.nanoTime() - pending.getStartNanos());
+        try {
+            return pending.getResult().get(Math.max(0L, grantedNanos), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Optimization failed", e.getCause());
         }
     }
 
+    private boolean isStale(OptResult optResult, PendingOptimization pending, State state) {
+        var currentAllocation = state.getCurrentTargetAllocation();
+        if (!pending.getPreviousAllocation().getCompact().equals(currentAllocation.getCompact())) {
+            return true;
+        }
+        return !validator.isAllocationValid(optResult.getAllocation(), currentAllocation,
+                state.getCurrentSystemMeasures().getTotalServiceLoad());
+    }
+
+    private ExecutionPlan startReallocation(OptResult optimizationResult, State state) {
+        var reallocationPlan = buildReallocationPlan(optimizationResult, state);
+        var resultingTargetAllocation = applyReallocation(state.getCurrentTargetAllocation(), reallocationPlan);
+
+        this.currentReallocation = reallocationPlan;
+
+        return new ExecutionPlan(resultingTargetAllocation, optimizationResult);
+    }
+
     private ExecutionPlan noOpExecution(Allocation currentTargetAllocation) {
         return new ExecutionPlan(false, currentTargetAllocation);
     }
@@ -145,9 +285,7 @@ public class Planner {
     }
 
 
-    private OptResult optimize(Allocation previousAllocation, State state) {
-        var measures = state.getCurrentSystemMeasures();
-
+    private OptResult optimize(Allocation previousAllocation, SystemMeasures measures, Map<VmInstance, Set<Service>> imageCacheState) {
         OptResult optResult = null;
 
         var stopWatch = new StopWatch();
@@ -156,14 +294,14 @@ public class Planner {
         switch (config.getStrategy()) {
             case GA:
             case GA_NC:
-                optResult = geneticOptimizer.optimize(previousAllocation, measures, state.getImageCacheState());
+                optResult = geneticOptimizer.optimize(previousAllocation, measures, imageCacheState);
                 break;
             case ILP:
             case ILP_NC:
-                optResult = ilpOptimizer.optimize(previousAllocation, measures, state.getImageCacheState());
+                optResult = ilpOptimizer.optimize(previousAllocation, measures, imageCacheState);
                 break;
             case FF:
-                optResult = firstFitOptimizer.optimize(previousAllocation, measures, state.getImageCacheState());
+                optResult = firstFitOptimizer.optimize(previousAllocation, measures, imageCacheState);
                 break;
         }
 
@@ -174,7 +312,7 @@ public class Planner {
             throw new IllegalStateException("Invalid allocation!");
         }
 
-        var fitness = fitnessFunction.eval(optResult.getAllocation(), previousAllocation, measures, state.getImageCacheState(), false);
+        var fitness = fitnessFunction.eval(optResult.getAllocation(), previousAllocation, measures, imageCacheState, false);
         optResult.setFitness(fitness);
         var neutralFitness = fitnessFunction.evalNeutral(optResult.getAllocation(), measures);
         optResult.setNeutralFitness(neutralFitness);
@@ -185,43 +323,33 @@ public class Planner {
     }
 
     private ReallocationPlan buildReallocationPlan(OptResult optResult, State state) {
-        List<VmInstance> vmLaunchList = new ArrayList<>();
-
-        model.getVms().forEach((vmId, vm) -> {
-            var isRunning = state.getCurrentTargetAllocation().getRunningVms().contains(vm);
-            var shouldRun = optResult.getAllocation().getRunningVms().contains(vm);
+        var current = state.getCurrentTargetAllocation().getCompact();
+        var target = optResult.getAllocation().getCompact();
+        var vms = model.getVmList();
+        var containerTypes = model.getContainerTypes();
 
-            if (!isRunning && shouldRun) {
-                vmLaunchList.add(vm);
-            } else if (isRunning && !shouldRun) {
-                // vmKillList.add(vmId);
-            }
-        });
+        List<VmInstance> vmLaunchList = new ArrayList<>();
+        current.changedRunningVms(target).stream()
+                .filter(v -> target.isRunning(vms.get(v)))
+                .forEach(v -> vmLaunchList.add(vms.get(v)));
 
         List<Pair<VmInstance, ContainerType>> containerLaunchList = new ArrayList<>();
         Map<VmInstance, List<ContainerType>> scaledContainersToRemove = new HashMap<>();
 
-        optResult.getAllocation().getTuples().stream()
-                .forEach(a -> {
-                    var allocate = a.isAllocate();
-                    var containersRunningOnVm = state.getCurrentTargetAllocation().getAllocationMap().getOrDefault(a.getVm(), new ArrayList<>());
-                    var isContainerTypeRunningOnVm = containersRunningOnVm.stream().anyMatch(c -> c.equals(a.getContainer()));
-                    var previousContainerOfSameService = containersRunningOnVm.stream()
-                            .filter(c -> c.getService().equals(a.getContainer().getService()))
-                            .findFirst();
-
-                    if (allocate && !isContainerTypeRunningOnVm) {
-                        previousContainerOfSameService.ifPresent(c ->
-                                // in case fo vertical container scaling within the same VM
-                                MapUtils.putToMapList(scaledContainersToRemove, a.getVm(), c)
-                        );
-                        containerLaunchList.add(Pair.of(a.getVm(), a.getContainer()));
-                    } else if (!allocate && isContainerTypeRunningOnVm) {
-                        // containerKillList.add(Pair.of(a.getVm(), a.getContainer()));
-                    } else {
-                        // nothing to do
-                    }
-                });
+        for (var cell : current.changedCells(target)) {
+            var s = cell / current.getVmCount();
+            var vm = vms.get(cell % current.getVmCount());
+            var targetContainer = target.getContainer(s, vm.getOrdinal());
+            var currentContainer = current.getContainer(s, vm.getOrdinal());
+
+            if (targetContainer >= 0) {
+                if (currentContainer >= 0) {
+                    // in case fo vertical container scaling within the same VM
+                    MapUtils.putToMapList(scaledContainersToRemove, vm, containerTypes.get(currentContainer));
+                }
+                containerLaunchList.add(Pair.of(vm, containerTypes.get(targetContainer)));
+            }
+        }
 
         return new ReallocationPlan(optResult, vmLaunchList, containerLaunchList, scaledContainersToRemove);
     }
@@ -8,6 +8,6 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 @Getter
 public class LoadRecord {
-    private final int minutes;
+    private final int seconds;
     private final Map<String, Integer> externalServiceLoad = new HashMap<>();
 }
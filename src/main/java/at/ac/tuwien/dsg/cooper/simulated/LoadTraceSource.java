@@ -0,0 +1,275 @@
+package at.ac.tuwien.dsg.cooper.simulated;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+
+/**
+ * Reads the load records of a CSV load fixture lazily, one record ahead of the consumer, instead of loading the whole
+ * trace onto the heap.
+ * <p>
+ * The first row is the header: the first column is the time, in minutes unless its name ends with {@code (s)}, the
+ * service columns are resolved by name. Columns are delimited by {@code ,} or {@code ;}, values are integers and rows
+ * must be sorted by time. A location prefixed with {@code file:} or an absolute path is memory-mapped, otherwise it is
+ * read from the classpath.
+ */
+@Slf4j
+public class LoadTraceSource implements Closeable {
+
+    private static final String FILE_PREFIX = "file:";
+    private static final String CLASSPATH_PREFIX = "classpath:";
+    private static final String BYTE_ORDER_MARK = "\uFEFF";
+    private static final int EOF = -1;
+
+    private final String location;
+    private final ByteInput input;
+    private final String[] serviceNames;
+    private final int[] serviceColumns;
+    private final int secondsPerTimeUnit;
+    private final int[] rowValues;
+
+    private LoadRecord next;
+    private int lastSeconds = Integer.MIN_VALUE;
+    private int lineNumber = 1;
+    private boolean exhausted = false;
+
+
+    private LoadTraceSource(String location, ByteInput input, Collection<String> serviceNames) throws IOException {
+        this.location = location;
+        this.input = input;
+        this.serviceNames = serviceNames.toArray(String[]::new);
+
+        var header = readHeader();
+        this.secondsPerTimeUnit = header.get(0).trim().endsWith("(s)") ? 1 : 60;
+        this.serviceColumns = new int[this.serviceNames.length];
+        for (int i = 0; i < this.serviceNames.length; i++) {
+            serviceColumns[i] = header.indexOf(this.serviceNames[i]);
+            if (serviceColumns[i] <= 0) {
+                throw new IllegalArgumentException("Load fixture " + location + " has no column for service " + this.serviceNames[i]);
+            }
+        }
+        this.rowValues = new int[header.size()];
+    }
+
+    public static LoadTraceSource open(String location, Collection<String> serviceNames) {
+        ByteInput input = null;
+        try {
+            if (location.startsWith(FILE_PREFIX) || Path.of(location).isAbsolute()) {
+                var path = Path.of(location.startsWith(FILE_PREFIX) ? location.substring(FILE_PREFIX.length()) : location);
+                input = new MappedInput(FileChannel.open(path, StandardOpenOption.READ));
+            } else {
+                var resource = location.startsWith(CLASSPATH_PREFIX) ? location.substring(CLASSPATH_PREFIX.length()) : location;
+                input = new StreamInput(new BufferedInputStream(new ClassPathResource(resource).getInputStream()));
+            }
+            var source = new LoadTraceSource(location, input, serviceNames);
+            source.advance();
+            return source;
+        } catch (IOException e) {
+            closeQuietly(input);
+            throw new RuntimeException("Error occurred while loading load fixture from " + location, e);
+        } catch (RuntimeException e) {
+            closeQuietly(input);
+            throw e;
+        }
+    }
+
+
+    /**
+     * Returns the next record without consuming it, or null if the trace is exhausted.
+     */
+    public LoadRecord peek() {
+        return next;
+    }
+
+    /**
+     * Returns and consumes the next record, or null if the trace is exhausted.
+     */
+    public LoadRecord poll() {
+        var record = next;
+        if (record != null) {
+            try {
+                advance();
+            } catch (IOException e) {
+                throw new RuntimeException("Error occurred while reading load fixture " + location, e);
+            }
+        }
+        return record;
+    }
+
+    @Override
+    public void close() throws IOException {
+        exhausted = true;
+        next = null;
+        input.close();
+    }
+
+
+    private void advance() throws IOException {
+        next = null;
+        while (!exhausted && next == null) {
+            var fieldCount = readRow();
+            if (fieldCount == 0) continue; // blank line
+            if (fieldCount < rowValues.length) {
+                throw new IllegalStateException("Load fixture " + location + " has " + fieldCount + " instead of "
+                        + rowValues.length + " columns in line " + lineNumber);
+            }
+
+            var seconds = rowValues[0] * secondsPerTimeUnit;
+            if (seconds < lastSeconds) {
+                throw new IllegalStateException("Load fixture " + location + " is not sorted by time in line " + lineNumber);
+            }
+            lastSeconds = seconds;
+
+            var record = new LoadRecord(seconds);
+            for (int i = 0; i < serviceNames.length; i++) {
+                record.getExternalServiceLoad().put(serviceNames[i], rowValues[serviceColumns[i]]);
+            }
+            next = record;
+        }
+        if (exhausted) {
+            input.close();
+        }
+    }
+
+    private List<String> readHeader() throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        int b;
+        while ((b = input.read()) != EOF && b != '\n') {
+            if (b != '\r') bytes.write(b);
+        }
+        if (b == EOF) {
+            exhausted = true;
+        }
+        var header = bytes.toString(StandardCharsets.UTF_8);
+        if (header.startsWith(BYTE_ORDER_MARK)) {
+            header = header.substring(BYTE_ORDER_MARK.length());
+        }
+        if (header.isBlank()) {
+            throw new IllegalArgumentException("Load fixture " + location + " has no header");
+        }
+        return Arrays.asList(header.split("[,;]"));
+    }
+
+    /**
+     * Parses the next line into {@link #rowValues}, ignoring columns beyond the header. Returns the number of fields read
+     * (0 for a blank line).
+     */
+    private int readRow() throws IOException {
+        lineNumber++;
+        var field = 0;
+        var value = 0;
+        var negative = false;
+        var digits = 0;
+
+        while (true) {
+            var b = input.read();
+            if (b == EOF || b == '\n' || b == ',' || b == ';') {
+                if (digits == 0 && (b == EOF || b == '\n') && field == 0) {
+                    if (b == EOF) exhausted = true;
+                    return 0;
+                }
+                if (digits == 0) {
+                    throw new IllegalStateException("Load fixture " + location + " has an empty value in line " + lineNumber);
+                }
+                if (field < rowValues.length) {
+                    rowValues[field] = negative ? -value : value;
+                }
+                field++;
+                value = 0;
+                negative = false;
+                digits = 0;
+
+                if (b == EOF) exhausted = true;
+                if (b == EOF || b == '\n') return field;
+            } else if (b >= '0' && b <= '9') {
+                value = value * 10 + (b - '0');
+                digits++;
+            } else if (b == '-' && digits == 0 && !negative) {
+                negative = true;
+            } else if (b != '\r' && b != ' ') {
+                throw new IllegalStateException("Load fixture " + location + " has an invalid value in line " + lineNumber);
+            }
+        }
+    }
+
+    private static void closeQuietly(ByteInput input) {
+        if (input == null) return;
+        try {
+            input.close();
+        } catch (IOException e) {
+            log.warn("Could not close load fixture", e);
+        }
+    }
+
+
+    private interface ByteInput extends Closeable {
+        /**
+         * Returns the next byte, or {@link #EOF}.
+         */
+        int read() throws IOException;
+    }
+
+    private static class StreamInput implements ByteInput {
+        private final InputStream stream;
+
+        StreamInput(InputStream stream) {
+            this.stream = stream;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return stream.read();
+        }
+
+        @Override
+        public void close() throws IOException {
+            stream.close();
+        }
+    }
+
+    /**
+     * Maps the file window by window, so that files beyond 2 GB can be read and only the current window is resident.
+     */
+    private static class MappedInput implements ByteInput {
+        private static final long WINDOW_SIZE = 64 << 20;
+
+        private final FileChannel channel;
+        private final long size;
+        private long windowEnd = 0;
+        private ByteBuffer window = ByteBuffer.allocate(0);
+
+        MappedInput(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!window.hasRemaining()) {
+                if (windowEnd >= size) return EOF;
+                var length = Math.min(WINDOW_SIZE, size - windowEnd);
+                window = channel.map(FileChannel.MapMode.READ_ONLY, windowEnd, length);
+                windowEnd += length;
+            }
+            return window.get() & 0xFF;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+}
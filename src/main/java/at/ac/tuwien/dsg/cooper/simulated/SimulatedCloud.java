@@ -4,7 +4,14 @@ import at.ac.tuwien.dsg.cooper.api.CloudController;
 import at.ac.tuwien.dsg.cooper.csp.Cloud;
 import at.ac.tuwien.dsg.cooper.csp.Listener;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 
@@ -13,11 +20,21 @@ public class SimulatedCloud implements Cloud {
 
     private final List<Listener> listeners = new ArrayList<>();
     private final CloudController cloudController = new StubCloudController();
-    private boolean terminationRequested = false;
+    private final boolean discreteEvent;
+    private volatile boolean terminationRequested = false;
     private long clock = 0L;
 
-    private static final double CYCLE_INTERVAL = 30;
-    private static final double TERMINATE_TIMEOUT = 43200; // 60*60*12 = 12h
+    private static final long CYCLE_INTERVAL = 30;
+    private static final long TERMINATE_TIMEOUT = 43200; // 60*60*12 = 12h
+
+
+    /**
+     * @param discreteEvent whether to advance the clock straight to the next event requested by a listener (see
+     *                      {@link Listener#getNextEventClock}) instead of ticking every cycle
+     */
+    public SimulatedCloud(boolean discreteEvent) {
+        this.discreteEvent = discreteEvent;
+    }
 
 
     @Override
@@ -27,8 +44,12 @@ public class SimulatedCloud implements Cloud {
 
     @Override
     public void run() {
-        while (!terminationRequested && clock < TERMINATE_TIMEOUT) {
-            tick();
+        if (discreteEvent) {
+            runEvents();
+        } else {
+            while (!terminationRequested && clock < TERMINATE_TIMEOUT) {
+                tick();
+            }
         }
 
         if (!terminationRequested && clock < TERMINATE_TIMEOUT) {
@@ -44,31 +65,65 @@ public class SimulatedCloud implements Cloud {
         clock += CYCLE_INTERVAL;
     }
 
+    /**
+     * Invokes the listeners only at the cycles they requested, the clock jumps over the cycles in between.
+     */
+    private void runEvents() {
+        var events = new PriorityQueue<Event>(Comparator.comparingLong(Event::getClock));
+        listeners.forEach(l -> events.add(new Event(0L, l)));
+
+        while (!terminationRequested && !events.isEmpty() && events.peek().getClock() < TERMINATE_TIMEOUT) {
+            var event = events.poll();
+            clock = event.getClock();
+            event.getListener().cycleElapsed(clock, cloudController);
+
+            // next event at a cycle boundary, at least one cycle ahead
+            var requestedClock = event.getListener().getNextEventClock(clock);
+            var cycles = Math.max(1L, (requestedClock - clock + CYCLE_INTERVAL - 1) / CYCLE_INTERVAL);
+            events.add(new Event(clock + cycles * CYCLE_INTERVAL, event.getListener()));
+        }
+        if (!terminationRequested && !events.isEmpty()) {
+            clock = TERMINATE_TIMEOUT; // no event before the timeout
+        }
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    private static class Event {
+        private final long clock;
+        private final Listener listener;
+    }
+
 
+    // thread-safe, as the executor issues operations concurrently
     private class StubCloudController implements CloudController {
-        private long vmIdSequence = 0L;
-        private long containerIdSequence = 0L;
-        private List<Long> vmList = new ArrayList<>();
-        private List<Long> containerList = new ArrayList<>();
+        private final AtomicLong vmIdSequence = new AtomicLong();
+        private final AtomicLong containerIdSequence = new AtomicLong();
+        private final Set<Long> runningVms = ConcurrentHashMap.newKeySet();
+        private final Set<Long> runningContainers = ConcurrentHashMap.newKeySet();
 
         @Override
         public long launchVm(String type, String dataCenter) {
-            return vmIdSequence++;
+            var id = vmIdSequence.getAndIncrement();
+            runningVms.add(id);
+            return id;
         }
 
         @Override
         public void terminateVm(long id) {
-            vmList.remove(id);
+            runningVms.remove(id);
         }
 
         @Override
         public long launchContainer(int cpuCores, long memory, long vmId) {
-            return containerIdSequence++;
+            var id = containerIdSequence.getAndIncrement();
+            runningContainers.add(id);
+            return id;
         }
 
         @Override
         public void terminateContainer(long id) {
-            containerList.remove(id);
+            runningContainers.remove(id);
         }
 
         @Override
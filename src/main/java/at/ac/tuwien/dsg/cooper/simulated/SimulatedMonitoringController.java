@@ -3,11 +3,8 @@ package at.ac.tuwien.dsg.cooper.simulated;
 import at.ac.tuwien.dsg.cooper.api.MonitoringController;
 import at.ac.tuwien.dsg.cooper.scheduler.Model;
 import at.ac.tuwien.dsg.cooper.scheduler.dto.MonitoringResult;
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.HashMap;
 import lombok.extern.slf4j.Slf4j;
-import org.jgrapht.graph.DefaultWeightedEdge;
-import org.jgrapht.graph.SimpleDirectedWeightedGraph;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -17,124 +14,67 @@ import org.springframework.stereotype.Service;
 @Service
 public class SimulatedMonitoringController implements MonitoringController {
 
+    private static final int SCENARIO_END_OFFSET = 2 * 60; // seconds after the last load record
+    // above the float error of the propagated load, below the interaction simulation's remainder tolerance
+    private static final double ROUNDING_NOISE = 0.01;
+
     private final Model model;
-    private final Deque<LoadRecord> loadFixture = new ArrayDeque<>();
+    private final LoadTraceSource loadFixture;
 
     private LoadRecord latestRecord;
 
     @Autowired
     public SimulatedMonitoringController(Model model, @Value("${cooper.loadFixture}") String loadFixtureFilename) {
         this.model = model;
-        var loader = new CsvLoader(model);
-        var loadRecords = loader.load(loadFixtureFilename);
-
-        var sorted = loadRecords.stream()
-                .sorted(Comparator.comparingInt(LoadRecord::getMinutes))
-                .collect(Collectors.toList());
-        loadFixture.addAll(sorted);
+        this.loadFixture = LoadTraceSource.open(loadFixtureFilename, model.getServices().keySet());
     }
 
 
     @Override
     public MonitoringResult getCurrentLoad(int elapsedSeconds) throws EndOfScenarioException {
-        var elapsedMinutes = elapsedSeconds / 60;
-
-        while (loadFixture.peek() != null && elapsedMinutes >= loadFixture.peek().getMinutes()) {
-            latestRecord = loadFixture.pop();
+        while (loadFixture.peek() != null && elapsedSeconds >= loadFixture.peek().getSeconds()) {
+            latestRecord = loadFixture.poll();
         }
 
 //        if (elapsedMinutes >= 24) {
 //            throw new EndOfScenarioException();
 //        }
 
-        if (elapsedMinutes >= latestRecord.getMinutes() + 2) {
+        if (elapsedSeconds >= latestRecord.getSeconds() + SCENARIO_END_OFFSET) {
             throw new EndOfScenarioException();
         }
 
         var externalServiceLoad = latestRecord.getExternalServiceLoad();
 
-        var interactionGraph = computeInteractionGraph(externalServiceLoad);
-
-        var internalServiceLoad = computeInternalServiceLoad(interactionGraph);
-
-        var totalServiceLoad = externalServiceLoad.entrySet().stream()
-                .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue() + internalServiceLoad.get(e.getKey())));
-
-        var totalSystemLoad = totalServiceLoad.values().stream().mapToInt(i -> i).sum();
-
-        return new MonitoringResult(externalServiceLoad, internalServiceLoad, totalServiceLoad, totalSystemLoad, interactionGraph);
-    }
-
-
-    private SimpleDirectedWeightedGraph<String, DefaultWeightedEdge> computeInteractionGraph(Map<String, Integer> externalServiceLoad) {
-        var interactionGraph = initInteractionGraph();
-
-        var loadRemainder = externalServiceLoad;
-        while (!loadRemainder.isEmpty()) {
-            loadRemainder = addToInteractionGraphAndReturnRemainingInternalLoad(interactionGraph, loadRemainder);
-        }
-
-        return interactionGraph;
-    }
+        var externalLoad = new int[model.getServiceList().size()];
+        externalServiceLoad.forEach((serviceName, load) -> externalLoad[model.getServices().get(serviceName).getOrdinal()] = load);
+        var propagation = model.getLoadPropagator().propagate(externalLoad);
 
-    private Map<String, Integer> computeInternalServiceLoad(SimpleDirectedWeightedGraph<String, DefaultWeightedEdge> interactionGraph) {
         var internalServiceLoad = new HashMap<String, Integer>();
-        model.getServices().values().forEach(s1 -> {
-            model.getServices().values().forEach(s2 -> {
-                if (!s1.equals(s2)) { // loops are prohibited
-                    var edge = interactionGraph.getEdge(s1.getName(), s2.getName());
-                    var edgeLoad = (int) interactionGraph.getEdgeWeight(edge);
-
-                    var oldValue = internalServiceLoad.getOrDefault(s2.getName(), 0);
-                    var newValue = oldValue + edgeLoad;
-                    internalServiceLoad.put(s2.getName(), newValue);
-                }
-            });
+        var totalServiceLoad = new HashMap<String, Integer>();
+        model.getServiceList().forEach(s -> {
+            // rounded up, capacity provisioned for the reported load must also cover the fractional calls the
+            // interaction simulation propagates
+            var internalLoad = (int) Math.ceil(propagation.getInternalLoad(s.getOrdinal()) - ROUNDING_NOISE);
+            internalServiceLoad.put(s.getName(), internalLoad);
+            totalServiceLoad.put(s.getName(), externalLoad[s.getOrdinal()] + internalLoad);
         });
-        return internalServiceLoad;
-    }
 
-    private SimpleDirectedWeightedGraph<String, DefaultWeightedEdge> initInteractionGraph() {
-        var interactionGraph = new SimpleDirectedWeightedGraph<String, DefaultWeightedEdge>(DefaultWeightedEdge.class);
-        model.getServices().values().forEach(s -> interactionGraph.addVertex(s.getName()));
-
-        model.getServices().values().forEach(s1 -> {
-            model.getServices().values().forEach(s2 -> {
-                if (!s1.equals(s2)) { // loops are prohibited
-                    interactionGraph.addEdge(s1.getName(), s2.getName(), new DefaultWeightedEdge());
-                    var edge = interactionGraph.getEdge(s1.getName(), s2.getName());
-                    interactionGraph.setEdgeWeight(edge, 0);
-                }
-            });
-        });
+        // rounded once, rather than summing the rounded service loads
+        var totalSystemLoad = (int) Math.round(propagation.getTotalSystemLoad());
 
-        return interactionGraph;
+        return new MonitoringResult(externalServiceLoad, internalServiceLoad, totalServiceLoad, totalSystemLoad, propagation.getInteraction());
     }
 
-    private Map<String, Integer> addToInteractionGraphAndReturnRemainingInternalLoad(
-            SimpleDirectedWeightedGraph<String, DefaultWeightedEdge> interactionGraph,
-            Map<String, Integer> loadToMultiply) {
-
-        var resultingInternalLoad = new HashMap<String, Integer>();
-        model.getInteractionMultiplication().forEach((s1, innerMap) -> {
-            innerMap.forEach((s2, r) -> {
-                var ingoingLoad = loadToMultiply.getOrDefault(s1, 0);
-
-                var multipliedLoad = ((Float) (ingoingLoad * r)).intValue();
 
-                if (multipliedLoad > 0) {
-                    resultingInternalLoad.put(s2, multipliedLoad);
-
-                    var edge = interactionGraph.getEdge(s1, s2);
-                    var oldEdgeValue = interactionGraph.getEdgeWeight(edge);
-                    var newEdgeValue = oldEdgeValue + multipliedLoad;
-                    interactionGraph.setEdgeWeight(edge, newEdgeValue);
-                }
-
-            });
-        });
-
-        return resultingInternalLoad;
+    @Override
+    public int getNextLoadChange(int elapsedSeconds) {
+        if (latestRecord == null) {
+            return elapsedSeconds;
+        }
+        // the fixture holds the records not yet reached, the scenario ends two minutes after the last one
+        var nextRecord = loadFixture.peek();
+        return nextRecord != null ? nextRecord.getSeconds() : latestRecord.getSeconds() + SCENARIO_END_OFFSET;
     }
 
 }
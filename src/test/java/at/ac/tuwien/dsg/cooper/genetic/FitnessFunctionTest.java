@@ -0,0 +1,88 @@
+package at.ac.tuwien.dsg.cooper.genetic;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import at.ac.tuwien.dsg.cooper.config.OptimizationConfig;
+import at.ac.tuwien.dsg.cooper.evaluation.ExperimentRunner;
+import at.ac.tuwien.dsg.cooper.scheduler.FirstFitOptimizer;
+import at.ac.tuwien.dsg.cooper.scheduler.Validator;
+import at.ac.tuwien.dsg.cooper.scheduler.dto.Allocation;
+import at.ac.tuwien.dsg.cooper.scheduler.dto.SystemMeasures;
+import at.ac.tuwien.dsg.cooper.simulated.EndOfScenarioException;
+import at.ac.tuwien.dsg.cooper.simulated.SimulatedMonitoringController;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * Checks {@link FitnessFunction#evalDelta} against {@link FitnessFunction#evalTerms}: derived from a parent matrix,
+ * the terms of a matrix must equal those evaluated from scratch.
+ */
+class FitnessFunctionTest {
+
+    private static final long SEED = 42;
+    private static final int CYCLE_SECONDS = 30;
+    private static final int CYCLES = 20;
+    private static final int DERIVATIONS = 50; // per cycle
+    private static final int MAX_CHANGED_CELLS = 6;
+    private static final double COST_TOLERANCE = 1e-3;
+
+    @ParameterizedTest
+    @CsvSource({"a, 1", "a, 10", "b, 1", "b, 10"})
+    void derivesTermsOfFullEvaluation(String scenario, int multiplicator) throws EndOfScenarioException {
+        var binder = ExperimentRunner.binder(scenario, multiplicator, OptimizationConfig.OptimizationAlgorithm.GA, Map.of());
+        var model = ExperimentRunner.model(binder);
+        var fitnessFunction = new FitnessFunction(model, new Validator(model), 0.1f);
+        var firstFitOptimizer = new FirstFitOptimizer(model);
+        var monitor = new SimulatedMonitoringController(model, binder.bind("cooper.load-fixture", String.class).get());
+        var random = new Random(SEED);
+
+        var previousAllocation = new Allocation(model);
+        for (int cycle = 0; cycle < CYCLES; cycle++) {
+            var measures = new SystemMeasures(model, monitor.getCurrentLoad(cycle * CYCLE_SECONDS), previousAllocation);
+            var allocation = firstFitOptimizer.optimize(previousAllocation, measures, Map.of()).getAllocation();
+            var codec = new AllocationCodec(model, measures);
+            var previousMatrix = codec.toMatrix(previousAllocation.getAllocationMap());
+            var imageCached = new boolean[previousMatrix.length];
+            for (int i = 0; i < imageCached.length; i++) imageCached[i] = random.nextBoolean();
+
+            var parentMatrix = codec.toMatrix(allocation.getAllocationMap());
+            var parentTerms = fitnessFunction.evalTerms(codec, parentMatrix, previousMatrix, imageCached, true);
+            for (int d = 0; d < DERIVATIONS; d++) {
+                var matrix = parentMatrix.clone();
+                var changedCells = random.ints(1 + random.nextInt(MAX_CHANGED_CELLS), 0, matrix.length)
+                        .distinct().sorted().toArray();
+                for (var i : changedCells) {
+                    var containerCount = codec.getContainerRpm()[i / codec.getVmCount()].length;
+                    matrix[i] = (matrix[i] + 1 + random.nextInt(containerCount)) % (containerCount + 1);
+                }
+
+                var derived = fitnessFunction.evalDelta(codec, parentTerms, parentMatrix, matrix, changedCells,
+                        previousMatrix, imageCached, true);
+                var evaluated = fitnessFunction.evalTerms(codec, matrix, previousMatrix, imageCached, true);
+                assertTermsEqual(evaluated, derived);
+
+                // continue from the derived terms, accumulating rounding errors as successive generations do
+                parentMatrix = matrix;
+                parentTerms = derived;
+            }
+            previousAllocation = allocation;
+        }
+    }
+
+    private static void assertTermsEqual(FitnessTerms expected, FitnessTerms actual) {
+        assertArrayEquals(expected.getVmContainers(), actual.getVmContainers());
+        assertArrayEquals(expected.getVmOverallocated(), actual.getVmOverallocated());
+        assertArrayEquals(expected.getServiceCapacity(), actual.getServiceCapacity());
+        assertArrayEquals(expected.getServiceContainers(), actual.getServiceContainers());
+        assertEquals(expected.getUncachedContainers(), actual.getUncachedContainers());
+        assertEquals(expected.getOverProvisionedCapacity(), actual.getOverProvisionedCapacity());
+        assertEquals(expected.getOverallocatedVms(), actual.getOverallocatedVms());
+        assertEquals(expected.getUnderprovisioning(), actual.getUnderprovisioning());
+        assertEquals(expected.getTotalCost(), actual.getTotalCost(), COST_TOLERANCE);
+        assertEquals(expected.getGracePeriodCost(), actual.getGracePeriodCost(), COST_TOLERANCE);
+    }
+
+}
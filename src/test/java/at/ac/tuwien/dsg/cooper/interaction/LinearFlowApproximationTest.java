@@ -0,0 +1,121 @@
+package at.ac.tuwien.dsg.cooper.interaction;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import at.ac.tuwien.dsg.cooper.config.OptimizationConfig;
+import at.ac.tuwien.dsg.cooper.evaluation.ExperimentRunner;
+import at.ac.tuwien.dsg.cooper.genetic.AllocationCodec;
+import at.ac.tuwien.dsg.cooper.genetic.SimpleReparation;
+import at.ac.tuwien.dsg.cooper.scheduler.FirstFitOptimizer;
+import at.ac.tuwien.dsg.cooper.scheduler.Model;
+import at.ac.tuwien.dsg.cooper.scheduler.Validator;
+import at.ac.tuwien.dsg.cooper.scheduler.dto.Allocation;
+import at.ac.tuwien.dsg.cooper.scheduler.dto.SystemMeasures;
+import at.ac.tuwien.dsg.cooper.simulated.EndOfScenarioException;
+import at.ac.tuwien.dsg.cooper.simulated.SimulatedMonitoringController;
+import io.jenetics.util.RandomRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.boot.context.properties.bind.Binder;
+
+/**
+ * Differential test of the {@link LinearFlowApproximation} against the reference {@link InteractionSimulation}, over
+ * every record of the shipped scenarios' load fixtures: for the first-fit allocation of each record, and for allocations
+ * generated as by the GA (random genotypes, repaired). The latter bound the latency deviation only on average, as the
+ * approximation does not follow the routing order of the iterative engine.
+ */
+class LinearFlowApproximationTest {
+
+    private static final long SEED = 42;
+    private static final int CYCLE_SECONDS = 30;
+    private static final int GENERATED_ALLOCATIONS = 3; // per load record
+
+    @ParameterizedTest
+    @CsvSource({"a, 1", "a, 10", "b, 1", "b, 10"})
+    void agreesOnFirstFitAllocations(String scenario, int multiplicator) {
+        var binder = ExperimentRunner.binder(scenario, multiplicator, OptimizationConfig.OptimizationAlgorithm.GA, Map.of());
+        var model = ExperimentRunner.model(binder);
+        var firstFitOptimizer = new FirstFitOptimizer(model);
+
+        for (var measures : measures(model, binder)) {
+            var allocation = firstFitOptimizer.optimize(new Allocation(model), measures, Map.of()).getAllocation();
+            var simulation = simulate(model, allocation, measures);
+
+            assertTrue(simulation.isAgreeing(), () -> "Engines deviate for load " + measures.getExternalServiceLoad()
+                    + ": latency " + simulation.getLatencyDeviation() + ", calls " + simulation.getCallsDeviation());
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource({"a, 1", "a, 10", "b, 1", "b, 10"})
+    void agreesOnGeneratedAllocations(String scenario, int multiplicator) {
+        var binder = ExperimentRunner.binder(scenario, multiplicator, OptimizationConfig.OptimizationAlgorithm.GA, Map.of());
+        var model = ExperimentRunner.model(binder);
+        var validator = new Validator(model);
+        var firstFitOptimizer = new FirstFitOptimizer(model);
+        var random = new Random(SEED);
+
+        var latencyDeviationSum = 0d;
+        var simulations = 0;
+        for (var measures : measures(model, binder)) {
+            var firstFit = firstFitOptimizer.optimize(new Allocation(model), measures, Map.of()).getAllocation();
+            var codec = new AllocationCodec(model, measures);
+            var reparation = new SimpleReparation(model, measures, validator, firstFit);
+
+            for (int i = 0; i < GENERATED_ALLOCATIONS; i++) {
+                var genotype = RandomRegistry.with(new Random(random.nextLong()), r -> codec.serviceRowGenotypeFactory());
+                var generated = new Allocation(model, codec.serviceRowSquareDecoder(genotype));
+                var allocation = new Allocation(model, reparation.repairGeneticAllocation(generated));
+                var simulation = simulate(model, allocation, measures);
+                if (Double.isNaN(simulation.getCallsDeviation())) continue; // both engines found it infeasible
+
+                assertTrue(simulation.getCallsDeviation() <= DifferentialSimulation.DEFAULT_TOLERANCE,
+                        () -> "Engines deviate for load " + measures.getExternalServiceLoad() + " in calls by "
+                                + simulation.getCallsDeviation());
+                latencyDeviationSum += simulation.getLatencyDeviation();
+                simulations++;
+            }
+        }
+
+        var averageLatencyDeviation = latencyDeviationSum / simulations;
+        assertTrue(averageLatencyDeviation <= DifferentialSimulation.DEFAULT_TOLERANCE,
+                () -> "Engines deviate in average latency by " + averageLatencyDeviation + " on average");
+    }
+
+
+    /**
+     * Runs both engines, which must agree on whether the allocation can process the load.
+     */
+    private static DifferentialSimulation simulate(Model model, Allocation allocation, SystemMeasures measures) {
+        var simulation = new DifferentialSimulation(model, allocation, measures);
+        try {
+            simulation.simulate();
+        } catch (IllegalStateException ex) {
+            assertTrue(simulation.isAgreeing(), () -> "Linear flow succeeded, reference failed: " + ex.getMessage());
+            return simulation;
+        }
+        assertFalse(Double.isNaN(simulation.getCallsDeviation()), "Linear flow failed, reference succeeded");
+        return simulation;
+    }
+
+    /**
+     * The measures of every scheduling cycle of the scenario, for an empty previous allocation.
+     */
+    private static List<SystemMeasures> measures(Model model, Binder binder) {
+        var monitor = new SimulatedMonitoringController(model, binder.bind("cooper.load-fixture", String.class).get());
+        var measures = new ArrayList<SystemMeasures>();
+        try {
+            for (int clock = 0; ; clock += CYCLE_SECONDS) {
+                measures.add(new SystemMeasures(model, monitor.getCurrentLoad(clock), new Allocation(model)));
+            }
+        } catch (EndOfScenarioException e) {
+            return measures;
+        }
+    }
+
+}